@@ -0,0 +1,39 @@
+package com.clementfornes;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class AtomicFiles {
+    private static final ConcurrentMap<Path, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+    public static void writeString(Path path, String content) throws IOException {
+        Path target = path.toAbsolutePath().normalize();
+        // Not synchronized: writes run on virtual threads, and a monitor held across file I/O pins the carrier.
+        ReentrantLock lock = LOCKS.computeIfAbsent(target, p -> new ReentrantLock());
+        lock.lock();
+        try {
+            Path tmp = Files.createTempFile(target.getParent(), target.getFileName() + ".", ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(tmp)) {
+                    writer.write(content);
+                }
+                try {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
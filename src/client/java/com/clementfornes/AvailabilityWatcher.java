@@ -0,0 +1,91 @@
+package com.clementfornes;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class AvailabilityWatcher {
+    private record Deadline(String user, int siteId, long at) {
+    }
+
+    private final ScheduledExecutorService scheduler;
+    private final VoteEventBus events;
+
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<>(Comparator.comparingLong(Deadline::at));
+    private final Map<String, Map<Integer, Boolean>> availability = new HashMap<>();
+    private ScheduledFuture<?> pending;
+    private long pendingAt = Long.MAX_VALUE;
+
+    public AvailabilityWatcher(ScheduledExecutorService scheduler, VoteEventBus events) {
+        this.scheduler = scheduler;
+        this.events = events;
+        events.subscribe(VoteEvent.DataRefreshed.class, this::onRefreshed);
+    }
+
+    public synchronized void cancel() {
+        deadlines.clear();
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+        pendingAt = Long.MAX_VALUE;
+    }
+
+    private void onRefreshed(VoteEvent.DataRefreshed event) {
+        VoteSnapshot snapshot = event.snapshot();
+        if (snapshot.status() != VoteSnapshot.Status.OK)
+            return;
+        List<VoteEvent> fired = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            String user = VoteStore.key(event.username());
+            deadlines.removeIf(d -> d.user().equals(user));
+            Map<Integer, Boolean> known = availability.computeIfAbsent(user, k -> new HashMap<>());
+            int[] siteIds = snapshot.siteIds();
+            long[] resets = snapshot.resets();
+            for (int i = 0; i < siteIds.length; i++) {
+                boolean available = resets[i] <= now;
+                Boolean was = known.put(siteIds[i], available);
+                if (available && !Boolean.TRUE.equals(was))
+                    fired.add(new VoteEvent.SiteAvailable(user, siteIds[i], now));
+                else if (!available)
+                    deadlines.add(new Deadline(user, siteIds[i], resets[i]));
+            }
+            reschedule(now);
+        }
+        for (VoteEvent e : fired)
+            events.publish(e);
+    }
+
+    private void fireDue() {
+        List<VoteEvent> fired = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            while (!deadlines.isEmpty() && deadlines.peek().at() <= now) {
+                Deadline due = deadlines.poll();
+                availability.computeIfAbsent(due.user(), k -> new HashMap<>()).put(due.siteId(), true);
+                fired.add(new VoteEvent.SiteAvailable(due.user(), due.siteId(), due.at()));
+            }
+            reschedule(now);
+        }
+        for (VoteEvent e : fired)
+            events.publish(e);
+    }
+
+    private void reschedule(long now) {
+        long at = deadlines.isEmpty() ? Long.MAX_VALUE : deadlines.peek().at();
+        if (at == pendingAt && pending != null && !pending.isDone())
+            return;
+        if (pending != null)
+            pending.cancel(false);
+        pendingAt = at;
+        pending = at == Long.MAX_VALUE ? null
+                : scheduler.schedule(this::fireDue, Math.max(0, at - now), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,76 @@
+package com.clementfornes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+public class BoundedBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+    private final int maxBytes;
+    private final long expectedLength;
+    private final ByteArrayOutputStream buffer;
+    private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+
+    public BoundedBodySubscriber(int maxBytes, long expectedLength) {
+        this.maxBytes = maxBytes;
+        this.expectedLength = expectedLength;
+        this.buffer = new ByteArrayOutputStream(
+                expectedLength > 0 && expectedLength <= maxBytes ? (int) expectedLength : 1024);
+    }
+
+    public static HttpResponse.BodyHandler<byte[]> handler(int maxBytes) {
+        return info -> new BoundedBodySubscriber(maxBytes,
+                info.headers().firstValueAsLong("Content-Length").orElse(-1));
+    }
+
+    @Override
+    public CompletionStage<byte[]> getBody() {
+        return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        if (expectedLength > maxBytes) {
+            subscription.cancel();
+            result.completeExceptionally(tooLarge());
+            return;
+        }
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        if (result.isDone())
+            return;
+        for (ByteBuffer item : items) {
+            if (buffer.size() + item.remaining() > maxBytes) {
+                subscription.cancel();
+                result.completeExceptionally(tooLarge());
+                return;
+            }
+            byte[] chunk = new byte[item.remaining()];
+            item.get(chunk);
+            buffer.write(chunk, 0, chunk.length);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        result.complete(buffer.toByteArray());
+    }
+
+    private IOException tooLarge() {
+        return new IOException("Response body exceeds " + maxBytes + " bytes");
+    }
+}
@@ -0,0 +1,72 @@
+package com.clementfornes;
+
+public class CircuitBreaker {
+    private enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long baseOpenMs;
+    private final long maxOpenMs;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private long openMs;
+    private boolean probing;
+
+    public CircuitBreaker(int failureThreshold, long baseOpenMs, long maxOpenMs) {
+        this.failureThreshold = failureThreshold;
+        this.baseOpenMs = baseOpenMs;
+        this.maxOpenMs = maxOpenMs;
+        this.openMs = baseOpenMs;
+    }
+
+    public synchronized boolean tryAcquire(long now) {
+        switch (state) {
+            case OPEN -> {
+                if (now - openedAt < openMs)
+                    return false;
+                state = State.HALF_OPEN;
+                probing = true;
+                return true;
+            }
+            case HALF_OPEN -> {
+                if (probing)
+                    return false;
+                probing = true;
+                return true;
+            }
+            default -> {
+                return true;
+            }
+        }
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+        openMs = baseOpenMs;
+        probing = false;
+    }
+
+    public synchronized void onFailure(long now) {
+        probing = false;
+        if (state == State.HALF_OPEN) {
+            openMs = Math.min(maxOpenMs, openMs * 2);
+            open(now);
+        } else if (state == State.CLOSED && ++failures >= failureThreshold) {
+            open(now);
+        }
+    }
+
+    public synchronized void release() {
+        probing = false;
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        openedAt = now;
+        failures = 0;
+    }
+}
@@ -0,0 +1,58 @@
+package com.clementfornes;
+
+public final class ColorTables {
+    public static final long GRADIENT_SPAN_MS = 7_200_000;
+    public static final long HUE_PERIOD_MS = 10_000;
+    public static final int PULSE_PERIOD_MS = 300;
+
+    private static final int GRADIENT_STEPS = 256;
+    private static final int HUE_STEPS = 1024;
+
+    private static final int[] GRADIENT = new int[GRADIENT_STEPS];
+    private static final int[] HUE = new int[HUE_STEPS];
+    private static final int[] PULSE_ALPHA = new int[PULSE_PERIOD_MS];
+
+    static {
+        for (int i = 0; i < GRADIENT_STEPS; i++)
+            GRADIENT[i] = (i << 16) | ((GRADIENT_STEPS - 1 - i) << 8);
+        for (int i = 0; i < HUE_STEPS; i++)
+            HUE[i] = hueToRgb(i * 6 * 255 / HUE_STEPS);
+        for (int t = 0; t < PULSE_PERIOD_MS; t++)
+            PULSE_ALPHA[t] = (int) (255 * (float) Math.sin(t / 150.0f * Math.PI)) << 24;
+    }
+
+    private ColorTables() {
+    }
+
+    public static int gradient(long remaining) {
+        if (remaining <= 0)
+            return GRADIENT[0];
+        if (remaining >= GRADIENT_SPAN_MS)
+            return GRADIENT[GRADIENT_STEPS - 1];
+        return GRADIENT[(int) (remaining * (GRADIENT_STEPS - 1) / GRADIENT_SPAN_MS)];
+    }
+
+    public static int hue(long now) {
+        return HUE[(int) (now % HUE_PERIOD_MS * HUE_STEPS / HUE_PERIOD_MS)];
+    }
+
+    public static int pulse(long elapsed, int color) {
+        return PULSE_ALPHA[Math.floorMod(elapsed, PULSE_PERIOD_MS)] | (color & 0xFFFFFF);
+    }
+
+    private static int hueToRgb(int h) {
+        int f = h % 255;
+        return switch (h / 255) {
+            case 0 -> rgb(255, f, 0);
+            case 1 -> rgb(255 - f, 255, 0);
+            case 2 -> rgb(0, 255, f);
+            case 3 -> rgb(0, 255 - f, 255);
+            case 4 -> rgb(f, 0, 255);
+            default -> rgb(255, 0, 255 - f);
+        };
+    }
+
+    private static int rgb(int r, int g, int b) {
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+}
@@ -0,0 +1,23 @@
+package com.clementfornes;
+
+import net.minecraft.text.Text;
+
+public class CompactStyle implements HudStyle {
+    private Text text;
+
+    @Override
+    public String name() {
+        return "Compact";
+    }
+
+    @Override
+    public void layout(HudRenderModel model) {
+        String siteName = model.nearestSiteName == null ? "" : model.nearestSiteName + ": ";
+        text = Text.literal("Votes " + model.totalLabel + " | " + siteName + model.nearestLabel);
+    }
+
+    @Override
+    public void render(HudCanvas canvas, HudRenderModel model, int x, int y) {
+        canvas.drawText(text, x, y, 0x00FF88, false);
+    }
+}
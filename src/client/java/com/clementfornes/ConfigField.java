@@ -0,0 +1,77 @@
+package com.clementfornes;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+public final class ConfigField<T> {
+    private static int count;
+
+    final int index;
+    final String name;
+    final T defaultValue;
+    private final Function<JsonElement, T> reader;
+    private final Function<T, JsonElement> writer;
+    private final UnaryOperator<T> sanitizer;
+
+    private ConfigField(String name, T defaultValue, Function<JsonElement, T> reader,
+                        Function<T, JsonElement> writer, UnaryOperator<T> sanitizer) {
+        synchronized (ConfigField.class) {
+            this.index = count++;
+        }
+        this.name = name;
+        this.defaultValue = defaultValue;
+        this.reader = reader;
+        this.writer = writer;
+        this.sanitizer = sanitizer;
+    }
+
+    public static ConfigField<Float> ofFloat(String name, float defaultValue, float min, float max) {
+        return new ConfigField<>(name, defaultValue, JsonElement::getAsFloat, JsonPrimitive::new,
+                v -> Float.isNaN(v) ? defaultValue : Math.max(min, Math.min(max, v)));
+    }
+
+    public static ConfigField<Integer> ofInt(String name, int defaultValue, int min, int max) {
+        return new ConfigField<>(name, defaultValue, JsonElement::getAsInt, JsonPrimitive::new,
+                v -> Math.max(min, Math.min(max, v)));
+    }
+
+    public static ConfigField<Boolean> ofBoolean(String name, boolean defaultValue) {
+        return new ConfigField<>(name, defaultValue, JsonElement::getAsBoolean, JsonPrimitive::new, v -> v);
+    }
+
+    public static ConfigField<String> ofString(String name, String defaultValue) {
+        return new ConfigField<>(name, defaultValue, JsonElement::getAsString, JsonPrimitive::new, String::trim);
+    }
+
+    public static ConfigField<List<String>> ofStringList(String name, List<String> defaultValue) {
+        return new ConfigField<>(name, defaultValue, element -> {
+            List<String> values = new ArrayList<>();
+            for (JsonElement value : element.getAsJsonArray())
+                values.add(value.getAsString());
+            return values;
+        }, values -> {
+            JsonArray array = new JsonArray();
+            for (String value : values)
+                array.add(value);
+            return array;
+        }, List::copyOf);
+    }
+
+    T read(JsonElement element) {
+        return sanitize(reader.apply(element));
+    }
+
+    T sanitize(T value) {
+        return value == null ? defaultValue : sanitizer.apply(value);
+    }
+
+    JsonElement write(T value) {
+        return writer.apply(value);
+    }
+}
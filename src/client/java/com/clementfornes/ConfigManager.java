@@ -1,75 +1,325 @@
 package com.clementfornes;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import org.slf4j.Logger;
 import com.mojang.logging.LogUtils;
 
-import java.io.Reader;
-import java.io.Writer;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.UnaryOperator;
 
 public class ConfigManager {
+    private static final long SAVE_DEBOUNCE_MS = 2000;
+    private static final long RELOAD_SETTLE_MS = 200;
+    private static final String VERSION_KEY = "configVersion";
+    static final int SCHEMA_VERSION = 1;
+
+    public static final ConfigField<Float> HUD_SCALE = ConfigField.ofFloat("hudScale", 0.6f, 0.1f, 2.0f);
+    public static final ConfigField<Integer> STYLE_INDEX =
+            ConfigField.ofInt("styleIndex", 0, 0, HudOverlay.styles.length - 1);
+    public static final ConfigField<Integer> HUD_ANCHOR = ConfigField.ofInt("hudAnchor", 0, 0, 3);
+    public static final ConfigField<Boolean> CACHED_RENDER = ConfigField.ofBoolean("cachedRender", false);
+    public static final ConfigField<Boolean> SHOW_ALL_ACCOUNTS = ConfigField.ofBoolean("showAllAccounts", false);
+    public static final ConfigField<List<String>> TRACKED_ACCOUNTS =
+            ConfigField.ofStringList("trackedAccounts", List.of());
+    public static final ConfigField<List<String>> SERVER_HOSTS =
+            ConfigField.ofStringList("serverHosts", List.of("excalia"));
+    public static final ConfigField<List<String>> SERVER_ADDRESSES =
+            ConfigField.ofStringList("serverAddresses", List.of());
+    public static final ConfigField<String> SERVER_MOTD = ConfigField.ofString("serverMotd", "");
+    public static final ConfigField<String> SITE_LIST_URL = ConfigField.ofString("siteListUrl", "");
+
+    private static final List<ConfigField<?>> FIELDS = List.of(HUD_SCALE, STYLE_INDEX, HUD_ANCHOR,
+            CACHED_RENDER, SHOW_ALL_ACCOUNTS, TRACKED_ACCOUNTS, SERVER_HOSTS, SERVER_ADDRESSES,
+            SERVER_MOTD, SITE_LIST_URL);
+
+    // Indexed by the version a file is migrated from; unversioned files use the version 1 field names.
+    private static final List<UnaryOperator<JsonObject>> MIGRATIONS = List.of(
+            obj -> obj
+    );
+
     private final Path path;
-    private float hudScale = 0.6f;
-    private int styleIndex = 0;
-    private int hudAnchor = 0;
+    private final ScheduledExecutorService timer;
+    private final Executor ioExecutor;
+    private final AtomicReferenceArray<Object> values;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
     private final Logger logger;
+    private final AtomicLong unsaved = new AtomicLong();
+    private volatile String onDisk;
+    private volatile WatchService watcher;
 
-    public ConfigManager(Path configPath) {
+    public ConfigManager(Path configPath, ScheduledExecutorService timer, Executor ioExecutor) {
         this.path = configPath;
+        this.timer = timer;
+        this.ioExecutor = ioExecutor;
         this.logger = LogUtils.getLogger();
+        int size = 0;
+        for (ConfigField<?> field : FIELDS)
+            size = Math.max(size, field.index + 1);
+        if (size > Long.SIZE)
+            throw new IllegalStateException("Too many config fields for the unsaved-change mask");
+        this.values = new AtomicReferenceArray<>(size);
+        for (ConfigField<?> field : FIELDS)
+            values.set(field.index, field.defaultValue);
     }
 
     public void load() {
         if (!Files.exists(path)) {
-            logger.warn("[ExcaliaVoteMod] Config file not found, using defaults");
+            logger.warn("[ExcaliaVoteMod] Config file not found, writing defaults");
+            markDirty();
             return;
         }
-        try (Reader reader = Files.newBufferedReader(path)) {
-            JsonObject obj = JsonParser.parseReader(reader).getAsJsonObject();
-            hudScale = obj.get("hudScale").getAsFloat();
-            styleIndex = obj.get("styleIndex").getAsInt();
-            hudAnchor = obj.get("hudAnchor").getAsInt();
+        try {
+            String text = Files.readString(path);
+            apply(JsonParser.parseString(text).getAsJsonObject());
+            onDisk = text;
         } catch (Exception e) {
             logger.warn("[ExcaliaVoteMod] Failed to load config, using defaults", e);
         }
     }
 
+    private boolean apply(JsonObject obj) {
+        int version = 0;
+        try {
+            if (obj.has(VERSION_KEY))
+                version = obj.get(VERSION_KEY).getAsInt();
+        } catch (RuntimeException e) {
+            logger.warn("[ExcaliaVoteMod] Invalid config version, reading fields as version {}", SCHEMA_VERSION);
+            version = SCHEMA_VERSION;
+        }
+        JsonObject migrated = obj.deepCopy();
+        for (int v = version; v < SCHEMA_VERSION && v < MIGRATIONS.size(); v++)
+            migrated = MIGRATIONS.get(v).apply(migrated);
+
+        boolean changed = false;
+        for (ConfigField<?> field : FIELDS) {
+            JsonElement element = migrated.get(field.name);
+            if (element == null || element.isJsonNull())
+                continue;
+            try {
+                Object value = field.read(element);
+                synchronized (this) {
+                    // A local change that is not saved yet is newer than whatever the file holds.
+                    if ((unsaved.get() & bit(field)) != 0)
+                        continue;
+                    if (!Objects.equals(values.getAndSet(field.index, value), value))
+                        changed = true;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("[ExcaliaVoteMod] Ignoring invalid config value for {}: {}", field.name, element);
+            }
+        }
+        if (version < SCHEMA_VERSION)
+            markDirty();
+        return changed;
+    }
+
+    public void watch(Executor executor, Runnable onReload) {
+        try {
+            WatchService service = path.getFileSystem().newWatchService();
+            path.toAbsolutePath().getParent().register(service,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watcher = service;
+            executor.execute(() -> watchLoop(service, onReload));
+        } catch (IOException e) {
+            logger.warn("[ExcaliaVoteMod] Config hot-reload unavailable", e);
+        }
+    }
+
+    private void watchLoop(WatchService service, Runnable onReload) {
+        Path name = path.getFileName();
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean touched = false;
+                for (WatchEvent<?> event : key.pollEvents())
+                    touched |= name.equals(event.context());
+                key.reset();
+                if (!touched)
+                    continue;
+                Thread.sleep(RELOAD_SETTLE_MS);
+                reload(onReload);
+            }
+        } catch (ClosedWatchServiceException | InterruptedException ignored) {
+        }
+    }
+
+    private void reload(Runnable onReload) {
+        String text;
+        JsonObject obj;
+        try {
+            text = Files.readString(path);
+            if (text.equals(onDisk))
+                return;
+            obj = JsonParser.parseString(text).getAsJsonObject();
+        } catch (Exception e) {
+            logger.warn("[ExcaliaVoteMod] Ignoring unreadable config edit: {}", e.toString());
+            return;
+        }
+        onDisk = text;
+        if (apply(obj)) {
+            logger.info("[ExcaliaVoteMod] Applied external config changes");
+            onReload.run();
+        }
+    }
+
+    public void close() {
+        WatchService service = watcher;
+        watcher = null;
+        if (service == null)
+            return;
+        try {
+            service.close();
+        } catch (IOException ignored) {
+        }
+    }
+
     public void save() {
+        if (dirty.get() && flushScheduled.compareAndSet(false, true))
+            timer.schedule(this::flushScheduled, SAVE_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public void flush() {
+        if (!dirty.compareAndSet(true, false))
+            return;
         JsonObject obj = new JsonObject();
-        obj.addProperty("hudScale", hudScale);
-        obj.addProperty("styleIndex", styleIndex);
-        obj.addProperty("hudAnchor", hudAnchor);
-        try (Writer writer = Files.newBufferedWriter(path)) {
-            writer.write(obj.toString());
+        long pending;
+        synchronized (this) {
+            pending = unsaved.getAndSet(0);
+            obj.addProperty(VERSION_KEY, SCHEMA_VERSION);
+            for (ConfigField<?> field : FIELDS)
+                obj.add(field.name, write(field));
+        }
+        String text = obj.toString();
+        if (text.equals(onDisk))
+            return;
+        try {
+            AtomicFiles.writeString(path, text);
+            onDisk = text;
+            ModMetrics.CONFIG_WRITES.increment();
         } catch (Exception e) {
+            unsaved.getAndAccumulate(pending, (a, b) -> a | b);
+            dirty.set(true);
             logger.error("[ExcaliaVoteMod] Failed to save config", e);
         }
     }
 
+    private <T> JsonElement write(ConfigField<T> field) {
+        return field.write(get(field));
+    }
+
+    private void flushScheduled() {
+        flushScheduled.set(false);
+        try {
+            ioExecutor.execute(this::flush);
+        } catch (RejectedExecutionException e) {
+            flush();
+        }
+    }
+
+    private void markDirty() {
+        dirty.set(true);
+        save();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(ConfigField<T> field) {
+        return (T) values.get(field.index);
+    }
+
+    public <T> void set(ConfigField<T> field, T value) {
+        T sanitized = field.sanitize(value);
+        synchronized (this) {
+            if (Objects.equals(values.getAndSet(field.index, sanitized), sanitized))
+                return;
+            unsaved.getAndAccumulate(bit(field), (a, b) -> a | b);
+        }
+        markDirty();
+    }
+
+    private static long bit(ConfigField<?> field) {
+        return 1L << field.index;
+    }
+
     public float getHudScale() {
-        return hudScale;
+        return get(HUD_SCALE);
     }
 
     public void setHudScale(float scale) {
-        this.hudScale = scale;
+        set(HUD_SCALE, scale);
     }
 
     public int getStyleIndex() {
-        return styleIndex;
+        return get(STYLE_INDEX);
     }
 
     public void setStyleIndex(int index) {
-        this.styleIndex = index;
+        set(STYLE_INDEX, index);
     }
 
     public int getHudAnchor() {
-        return hudAnchor;
+        return get(HUD_ANCHOR);
     }
 
     public void setHudAnchor(int anchor) {
-        this.hudAnchor = anchor;
+        set(HUD_ANCHOR, anchor);
+    }
+
+    public boolean isCachedRender() {
+        return get(CACHED_RENDER);
+    }
+
+    public void setCachedRender(boolean cached) {
+        set(CACHED_RENDER, cached);
+    }
+
+    public boolean isShowAllAccounts() {
+        return get(SHOW_ALL_ACCOUNTS);
+    }
+
+    public void setShowAllAccounts(boolean show) {
+        set(SHOW_ALL_ACCOUNTS, show);
+    }
+
+    public List<String> getTrackedAccounts() {
+        return get(TRACKED_ACCOUNTS);
+    }
+
+    public void setTrackedAccounts(List<String> accounts) {
+        set(TRACKED_ACCOUNTS, accounts);
+    }
+
+    public List<String> getServerHosts() {
+        return get(SERVER_HOSTS);
+    }
+
+    public List<String> getServerAddresses() {
+        return get(SERVER_ADDRESSES);
+    }
+
+    public String getServerMotd() {
+        return get(SERVER_MOTD);
+    }
+
+    public String getSiteListUrl() {
+        return get(SITE_LIST_URL);
     }
 }
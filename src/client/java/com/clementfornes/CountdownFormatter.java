@@ -0,0 +1,30 @@
+package com.clementfornes;
+
+public final class CountdownFormatter {
+    private CountdownFormatter() {
+    }
+
+    public static StringBuilder append(StringBuilder out, long remMillis) {
+        long totalSeconds = Math.max(0, remMillis / 1000);
+        long hours = totalSeconds / 3600;
+        int minutes = (int) (totalSeconds / 60 % 60);
+        int seconds = (int) (totalSeconds % 60);
+        if (hours > 0) {
+            out.append(hours).append(':');
+        }
+        appendTwoDigits(out, hours > 0 ? minutes : (int) (totalSeconds / 60));
+        out.append(':');
+        appendTwoDigits(out, seconds);
+        return out;
+    }
+
+    public static String format(long remMillis) {
+        return append(new StringBuilder(10), remMillis).toString();
+    }
+
+    private static void appendTwoDigits(StringBuilder out, int value) {
+        if (value < 10)
+            out.append('0');
+        out.append(value);
+    }
+}
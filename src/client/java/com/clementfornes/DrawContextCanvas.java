@@ -0,0 +1,31 @@
+package com.clementfornes;
+
+import net.minecraft.client.font.TextRenderer;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.text.Text;
+
+public class DrawContextCanvas implements HudCanvas {
+    private DrawContext ctx;
+    private TextRenderer textRenderer;
+
+    public DrawContextCanvas bind(DrawContext ctx, TextRenderer textRenderer) {
+        this.ctx = ctx;
+        this.textRenderer = textRenderer;
+        return this;
+    }
+
+    @Override
+    public void drawText(Text text, int x, int y, int color, boolean shadow) {
+        ctx.drawText(textRenderer, text, x, y, color, shadow);
+    }
+
+    @Override
+    public void fill(int x1, int y1, int x2, int y2, int color) {
+        ctx.fill(x1, y1, x2, y2, color);
+    }
+
+    @Override
+    public void drawBorder(int x, int y, int width, int height, int color) {
+        ctx.drawBorder(x, y, width, height, color);
+    }
+}
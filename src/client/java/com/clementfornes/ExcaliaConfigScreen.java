@@ -56,6 +56,28 @@ public class ExcaliaConfigScreen extends Screen {
                 })
                 .dimensions(midWidth - 100, y, 200, 20)
                 .build());
+        y += 30;
+
+        this.addDrawableChild(ButtonWidget.builder(
+                Text.literal("Rendu en cache: " + (config.isCachedRender() ? "Oui" : "Non")),
+                button -> {
+                    boolean next = !config.isCachedRender();
+                    config.setCachedRender(next);
+                    button.setMessage(Text.literal("Rendu en cache: " + (next ? "Oui" : "Non")));
+                })
+                .dimensions(midWidth - 100, y, 200, 20)
+                .build());
+        y += 30;
+
+        this.addDrawableChild(ButtonWidget.builder(
+                Text.literal("Tous les comptes: " + (config.isShowAllAccounts() ? "Oui" : "Non")),
+                button -> {
+                    boolean next = !config.isShowAllAccounts();
+                    config.setShowAllAccounts(next);
+                    button.setMessage(Text.literal("Tous les comptes: " + (next ? "Oui" : "Non")));
+                })
+                .dimensions(midWidth - 100, y, 200, 20)
+                .build());
         y += 40;
 
         this.addDrawableChild(ButtonWidget.builder(
@@ -1,53 +1,129 @@
 package com.clementfornes;
 
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.client.rendering.v1.HudRenderCallback;
+import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
+import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
 import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.registry.Registries;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.ResourceType;
+import net.minecraft.util.Identifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.file.Path;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ExcaliaVoteModClient implements ClientModInitializer {
     private static final Logger LOGGER = LoggerFactory.getLogger("excaliavotemod-client");
     private static final Path CONFIG_PATH = FabricLoader.getInstance()
             .getConfigDir().resolve("excaliavotemod.json");
-    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor();
+    private static final Path CACHE_PATH = FabricLoader.getInstance()
+            .getConfigDir().resolve("excaliavotemod-cache.json");
+    private static final Path SITES_PATH = FabricLoader.getInstance()
+            .getConfigDir().resolve("excaliavotemod-sites.json");
+    private static final Path METRICS_PATH = FabricLoader.getInstance()
+            .getConfigDir().resolve("excaliavotemod-metrics.csv");
+    private static final ModExecutors EXECUTORS = new ModExecutors();
     private static final String VOTE_ENDPOINT = "https://www.excalia.fr/vote/user/";
 
-    private final ConfigManager config = new ConfigManager(CONFIG_PATH);
-    private final VoteService voteService = new VoteService(VOTE_ENDPOINT, LOGGER);
-    private final HudOverlay hudOverlay = new HudOverlay(config);
+    private final ConfigManager config = new ConfigManager(CONFIG_PATH, EXECUTORS.timer(), EXECUTORS.io());
+    private final VoteCache voteCache = new VoteCache(CACHE_PATH, EXECUTORS.io(), LOGGER);
+    private final VoteEventBus events = new VoteEventBus(LOGGER);
+    private final VoteService voteService = new VoteService(VOTE_ENDPOINT, LOGGER, EXECUTORS.io(), voteCache, events);
+    private final AvailabilityWatcher availabilityWatcher = new AvailabilityWatcher(EXECUTORS.timer(), events);
+    private final SiteRegistry siteRegistry = new SiteRegistry(LOGGER);
+    private final HudOverlay hudOverlay = new HudOverlay(config, siteRegistry);
+    private final RefreshScheduler refreshScheduler = new RefreshScheduler(EXECUTORS.timer(), voteService, LOGGER);
+    private final AtomicBoolean soundQueued = new AtomicBoolean();
 
     @Override
     public void onInitializeClient() {
         LOGGER.info("[ExcaliaVoteMod] Excalia Vote Mod Client Initializing");
         config.load();
+        config.watch(EXECUTORS.io(), () -> {
+            voteService.track(config.getTrackedAccounts());
+            hudOverlay.invalidateLayout();
+        });
+        voteCache.load();
+        siteRegistry.loadBundled();
+        siteRegistry.loadOverride(SITES_PATH);
+        siteRegistry.loadRemote(config.getSiteListUrl(), EXECUTORS.io())
+                .thenRun(hudOverlay::invalidateLayout);
 
         KeyBindings.register();
 
         ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> {
-            if (!ServerUtils.isExcaliaServer(client))
+            if (!ServerUtils.detect(handler, client, config))
                 return;
             String playerName = client.getSession().getUsername();
             LOGGER.info("[ExcaliaVoteMod] Player {} joined Excalia server, scheduling vote fetch", playerName);
-            scheduleVoteFetch(playerName);
+            voteService.restore(playerName);
+            voteService.track(config.getTrackedAccounts());
+            refreshScheduler.start(playerName);
+        });
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> {
+            ServerUtils.reset();
+            refreshScheduler.stop();
+            voteService.cancelAll();
+            availabilityWatcher.cancel();
+        });
+        events.subscribe(VoteEvent.SiteAvailable.class, event -> {
+            if (!event.username().equalsIgnoreCase(voteService.activeUser()))
+                return;
+            hudOverlay.onSiteAvailable(event.siteId(), event.at());
+            if (soundQueued.compareAndSet(false, true))
+                MinecraftClient.getInstance().execute(this::playAvailableSound);
         });
         HudRenderCallback.EVENT
                 .register((drawContext, tickCounter) -> hudOverlay.onHudRender(drawContext, tickCounter, voteService));
+        ResourceManagerHelper.get(ResourceType.CLIENT_RESOURCES)
+                .registerReloadListener(new SimpleSynchronousResourceReloadListener() {
+                    @Override
+                    public Identifier getFabricId() {
+                        return Identifier.of(ExcaliaVoteMod.MOD_ID, "hud_layout");
+                    }
+
+                    @Override
+                    public void reload(ResourceManager manager) {
+                        hudOverlay.invalidateLayout();
+                    }
+                });
+
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> {
+            refreshScheduler.stop();
+            voteService.cancelAll();
+            config.flush();
+            config.close();
+            EXECUTORS.shutdown(LOGGER);
+        });
+
+        EXECUTORS.scheduleIoAtFixedRate(config::flush, 5, TimeUnit.MINUTES);
+        EXECUTORS.scheduleIoAtFixedRate(this::dumpMetrics, 5, TimeUnit.MINUTES);
+    }
 
-        SCHEDULER.scheduleAtFixedRate(config::save, 5, 5, TimeUnit.MINUTES);
+    private void playAvailableSound() {
+        soundQueued.set(false);
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (client.player == null || !ServerUtils.isExcaliaServer())
+            return;
+        client.player.playSound(
+                Registries.SOUND_EVENT.get(Identifier.of("minecraft", "entity.experience_orb.pickup")),
+                1.0f, 1.0f);
     }
 
-    private void scheduleVoteFetch(String username) {
-        voteService.fetch(username)
-                .thenAccept(v -> LOGGER.info("[ExcaliaVoteMod] Vote data fetched for {}", username));
-        SCHEDULER.scheduleAtFixedRate(
-                () -> voteService.fetch(username),
-                5, 5, TimeUnit.MINUTES);
+    private void dumpMetrics() {
+        if (!hudOverlay.isDebugShown())
+            return;
+        try {
+            ModMetrics.appendCsv(METRICS_PATH);
+        } catch (Exception e) {
+            LOGGER.warn("[ExcaliaVoteMod] Failed to write metrics", e);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.clementfornes;
+
+public class GradientStyle extends PanelStyle {
+    @Override
+    public String name() {
+        return "Dégradé";
+    }
+
+    @Override
+    public int siteColor(int siteId, long remaining, boolean available, long now) {
+        return ColorTables.gradient(remaining);
+    }
+}
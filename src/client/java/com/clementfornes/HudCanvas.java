@@ -0,0 +1,11 @@
+package com.clementfornes;
+
+import net.minecraft.text.Text;
+
+public interface HudCanvas {
+    void drawText(Text text, int x, int y, int color, boolean shadow);
+
+    void fill(int x1, int y1, int x2, int y2, int color);
+
+    void drawBorder(int x, int y, int width, int height, int color);
+}
@@ -0,0 +1,112 @@
+package com.clementfornes;
+
+import net.minecraft.text.Text;
+
+import java.util.Arrays;
+
+public class HudDrawList implements HudCanvas {
+    private static final byte TEXT = 0;
+    private static final byte TEXT_SHADOW = 1;
+    private static final byte FILL = 2;
+    private static final byte BORDER = 3;
+
+    private byte[] ops = new byte[32];
+    private int[] args = new int[32 * 5];
+    private Text[] texts = new Text[32];
+    private int size;
+
+    private boolean valid;
+    private long lastRedraw;
+    private long version = -1;
+    private long second = -1;
+    private int styleIndex = -1;
+    private int x = Integer.MIN_VALUE;
+    private int y = Integer.MIN_VALUE;
+
+    public boolean needsRedraw(HudRenderModel model, int styleIndex, int x, int y, int animationFps, long now) {
+        boolean changed = !valid
+                || model.sourceVersion != version
+                || model.displayedSecond != second
+                || styleIndex != this.styleIndex
+                || x != this.x
+                || y != this.y;
+        if (!changed && animationFps > 0)
+            changed = now - lastRedraw >= 1000 / animationFps;
+        if (!changed)
+            return false;
+        version = model.sourceVersion;
+        second = model.displayedSecond;
+        this.styleIndex = styleIndex;
+        this.x = x;
+        this.y = y;
+        lastRedraw = now;
+        return true;
+    }
+
+    public HudDrawList begin() {
+        Arrays.fill(texts, 0, size, null);
+        size = 0;
+        valid = true;
+        return this;
+    }
+
+    public void replay(HudCanvas target) {
+        for (int i = 0; i < size; i++) {
+            int a = i * 5;
+            switch (ops[i]) {
+                case TEXT, TEXT_SHADOW -> target.drawText(texts[i], args[a], args[a + 1], args[a + 2], ops[i] == TEXT_SHADOW);
+                case FILL -> target.fill(args[a], args[a + 1], args[a + 2], args[a + 3], args[a + 4]);
+                case BORDER -> target.drawBorder(args[a], args[a + 1], args[a + 2], args[a + 3], args[a + 4]);
+                default -> {
+                }
+            }
+        }
+    }
+
+    public void invalidate() {
+        valid = false;
+    }
+
+    public void release() {
+        Arrays.fill(texts, 0, size, null);
+        size = 0;
+        valid = false;
+    }
+
+    @Override
+    public void drawText(Text text, int x, int y, int color, boolean shadow) {
+        int a = append(shadow ? TEXT_SHADOW : TEXT);
+        texts[size - 1] = text;
+        args[a] = x;
+        args[a + 1] = y;
+        args[a + 2] = color;
+    }
+
+    @Override
+    public void fill(int x1, int y1, int x2, int y2, int color) {
+        put(append(FILL), x1, y1, x2, y2, color);
+    }
+
+    @Override
+    public void drawBorder(int x, int y, int width, int height, int color) {
+        put(append(BORDER), x, y, width, height, color);
+    }
+
+    private void put(int a, int v0, int v1, int v2, int v3, int v4) {
+        args[a] = v0;
+        args[a + 1] = v1;
+        args[a + 2] = v2;
+        args[a + 3] = v3;
+        args[a + 4] = v4;
+    }
+
+    private int append(byte op) {
+        if (size == ops.length) {
+            ops = Arrays.copyOf(ops, size * 2);
+            args = Arrays.copyOf(args, size * 2 * 5);
+            texts = Arrays.copyOf(texts, size * 2);
+        }
+        ops[size] = op;
+        return size++ * 5;
+    }
+}
@@ -3,50 +3,82 @@ package com.clementfornes;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.DrawContext;
 import net.minecraft.client.render.RenderTickCounter;
-import net.minecraft.registry.Registries;
 import net.minecraft.text.Text;
-import net.minecraft.util.Identifier;
 
-import java.awt.Color;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 public class HudOverlay {
     private final ConfigManager config;
+    private final SiteRegistry sites;
     private boolean showHud = true;
-    private long lastFetch = 0;
-    private final long refreshInterval = 5 * 60 * 1000;
-    private final int padding = 6;
-    private final int lineHeight = 13;
+    private volatile boolean showDebug = false;
+    private final int padding = HudStyle.PADDING;
+    private final int lineHeight = HudStyle.LINE_HEIGHT;
 
-    private final Map<String, Boolean> voteAvailability = new HashMap<>();
-    private final Map<String, Long> animationTimers = new HashMap<>();
+    private final Map<Integer, Long> animationTimers = new ConcurrentHashMap<>();
     private static final int animationDuration = 3000;
-    public static final String[] styles = {
-            "Minimaliste", "Dégradé", "Arc-en-ciel", "Compact", "Lisible", "Terminal"
-    };
+    private static final int pulseFps = 20;
+    private static final List<Supplier<HudStyle>> styleFactories = List.of(
+            MinimalStyle::new, GradientStyle::new, RainbowStyle::new,
+            CompactStyle::new, ReadableStyle::new, TerminalStyle::new
+    );
+    public static final String[] styles = styleFactories.stream()
+            .map(factory -> factory.get().name())
+            .toArray(String[]::new);
 
-    public HudOverlay(ConfigManager config) {
+    private final HudStyle[] styleImpls = styleFactories.stream()
+            .map(Supplier::get)
+            .toArray(HudStyle[]::new);
+    private HudStyle activeStyle = styleImpls[0];
+    private int activeStyleIndex = -1;
+
+    final HudRenderModel model = new HudRenderModel();
+    private final DrawContextCanvas canvas = new DrawContextCanvas();
+    private final List<Text> debugTexts = new ArrayList<>();
+    private long debugSecond = -1;
+    private final TextWidthCache measurer = new TextWidthCache(
+            text -> MinecraftClient.getInstance().textRenderer.getWidth(text), 512);
+    private volatile boolean layoutInvalid;
+    private volatile boolean pulsesChanged;
+    private final HudDrawList drawList = new HudDrawList();
+
+    public HudOverlay(ConfigManager config, SiteRegistry sites) {
         this.config = config;
+        this.sites = sites;
     }
 
     public void onHudRender(DrawContext ctx, RenderTickCounter tickCounter, VoteService service) {
         MinecraftClient mc = MinecraftClient.getInstance();
         handleInput(mc);
 
-        if (!showHud || mc.player == null || !ServerUtils.isExcaliaServer(mc))
+        if (!showHud || mc.player == null || !ServerUtils.isExcaliaServer())
             return;
 
+        long frameStart = System.nanoTime();
+        long allocStart = ModMetrics.allocatedBytes();
+        int styleIndex = config.getStyleIndex();
+        selectStyle(styleIndex);
         long now = System.currentTimeMillis();
-        if (now - lastFetch > refreshInterval) {
-            lastFetch = now;
-            service.fetch(mc.getSession().getUsername());
-        }
 
-        List<String> lines = buildLines(service);
-        List<Integer> colors = buildColors(mc, service, now);
+        VoteSnapshot snapshot = service.snapshot();
+        if (layoutInvalid) {
+            layoutInvalid = false;
+            measurer.clear();
+            model.lineVersion = -1;
+            model.sourceVersion = -1;
+            drawList.invalidate();
+        }
+        if (pulsesChanged || model.isStale(snapshot, now)) {
+            pulsesChanged = false;
+            collectAccounts(service);
+            rebuildModel(measurer, snapshot, now);
+        }
 
-        int width = calcWidth(mc, lines) + padding * 2;
-        int height = lines.size() * lineHeight + padding * 2;
+        HudRenderModel m = model;
+        int width = m.panelWidth;
+        int height = m.panelHeight;
 
         float scale = config.getHudScale();
         int sw = mc.getWindow().getScaledWidth();
@@ -75,104 +107,65 @@ public class HudOverlay {
         int x = rawX;
         int y = rawY;
 
+        canvas.bind(ctx, mc.textRenderer);
         ctx.getMatrices().push();
         ctx.getMatrices().scale(scale, scale, 1);
-
-        String style = styles[config.getStyleIndex()];
-        switch (style) {
-            case "Minimaliste" -> {
-                long nearestRem = Long.MAX_VALUE;
-                long nowLocal = System.currentTimeMillis();
-                if (service.sites != null) {
-                    for (long resetTime : service.sites.values()) {
-                        long remTime = resetTime - nowLocal;
-                        if (remTime > 0 && remTime < nearestRem) {
-                            nearestRem = remTime;
-                        }
-                    }
-                }
-                String nearestStr;
-                if (nearestRem == Long.MAX_VALUE || nearestRem <= 0) {
-                    nearestStr = "Disponible";
-                } else {
-                    nearestStr = String.format("%02d:%02d", nearestRem / 60000, (nearestRem / 1000) % 60);
-                }
-                String total = service.totalVotes == -1 ? "..." : String.valueOf(service.totalVotes);
-                String display = total + " | " + nearestStr;
-                ctx.drawText(mc.textRenderer, Text.literal(display), x, y, 0xFFFFFF, false);
-            }
-            case "Compact" -> {
-                long nowLocal = System.currentTimeMillis();
-                long nearestRem = Long.MAX_VALUE;
-                String nearestId = null;
-                if (service.sites != null) {
-                    for (Map.Entry<String, Long> entry : service.sites.entrySet()) {
-                        long remTime = entry.getValue() - nowLocal;
-                        if (remTime > 0 && remTime < nearestRem) {
-                            nearestRem = remTime;
-                            nearestId = entry.getKey();
-                        }
-                    }
-                }
-                String nearestStr = (nearestRem == Long.MAX_VALUE || nearestRem <= 0)
-                        ? "Disponible"
-                        : String.format("%02d:%02d", nearestRem / 60000, (nearestRem / 1000) % 60);
-                String totalStr = service.totalVotes == -1 ? "..." : String.valueOf(service.totalVotes);
-                String siteName = nearestId == null ? "" : getSiteName(nearestId) + ": ";
-                String display = "Votes " + totalStr + " | " + siteName + nearestStr;
-                ctx.drawText(mc.textRenderer, Text.literal(display), x, y, 0x00FF88, false);
-            }
-            case "Lisible" -> {
-                int pad = padding * 2;
-                int w = calcWidth(mc, lines) + pad * 2;
-                int h = lines.size() * lineHeight + pad * 2;
-                ctx.fill(x, y, x + w, y + h, 0xCCFFFFFF);
-                ctx.drawBorder(x, y, w + 1, h + 1, 0xFF000000);
-                int ty2 = y + pad;
-                for (int i = 0; i < lines.size(); i++) {
-                    ctx.drawText(mc.textRenderer, Text.literal(lines.get(i)), x + pad, ty2, colors.get(i), false);
-                    ty2 += lineHeight;
-                }
-            }
-            case "Terminal" -> {
-                int w2 = calcWidth(mc, lines) + padding * 2;
-                int x0 = x;
-                int y0 = y;
-                ctx.drawText(mc.textRenderer, Text.literal("+" + "-".repeat(w2 / 6) + "+"), x0, y0, 0x00FF00, false);
-                int y1 = y0 + lineHeight;
-                for (String line : lines) {
-                    ctx.drawText(mc.textRenderer, Text.literal("| " + line), x0, y1, 0x00FF00, false);
-                    y1 += lineHeight;
-                }
-                ctx.drawText(mc.textRenderer, Text.literal("+" + "-".repeat(w2 / 6) + "+"), x0, y1, 0x00FF00, false);
-            }
-            case "Dégradé", "Arc-en-ciel" -> {
-                ctx.fill(x - 2, y - 2, x + width, y + height, 0x88000000);
-                ctx.drawBorder(x - 2, y - 2, width + 2, height + 2, 0xFFAAAAAA);
-
-                int ty = y + padding;
-                for (int i = 0; i < lines.size(); i++) {
-                    ctx.drawText(mc.textRenderer, Text.literal(lines.get(i)), x + padding, ty, colors.get(i), true);
-                    ty += lineHeight;
-                }
-            }
-            default -> {
-                int ty = y + padding;
-                for (int i = 0; i < lines.size(); i++) {
-                    ctx.drawText(mc.textRenderer, Text.literal(lines.get(i)), x + padding, ty, colors.get(i), true);
-                    ty += lineHeight;
-                }
+        if (config.isCachedRender()) {
+            int fps = m.animating ? pulseFps : activeStyle.animationFps();
+            if (drawList.needsRedraw(m, styleIndex, x, y, fps, now)) {
+                buildColors(now);
+                renderPanel(drawList.begin(), x, y);
             }
+            drawList.replay(canvas);
+        } else {
+            drawList.release();
+            buildColors(now);
+            renderPanel(canvas, x, y);
         }
-
         ctx.getMatrices().pop();
 
-        config.save();
+        ModMetrics.FRAME_NANOS[styleIndex].record(System.nanoTime() - frameStart);
+        if (allocStart >= 0)
+            ModMetrics.FRAME_ALLOCATED_BYTES.record(ModMetrics.allocatedBytes() - allocStart);
+
+        if (showDebug) {
+            ctx.getMatrices().push();
+            ctx.getMatrices().scale(scale, scale, 1);
+            renderDebug(canvas, x, y + height + 4, now);
+            ctx.getMatrices().pop();
+        }
+    }
+
+    private void renderDebug(HudCanvas canvas, int x, int y, long now) {
+        if (debugSecond != now / 1000) {
+            debugSecond = now / 1000;
+            debugTexts.clear();
+            for (String line : ModMetrics.describe())
+                debugTexts.add(Text.literal(line));
+        }
+        for (Text line : debugTexts) {
+            canvas.drawText(line, x, y, 0xFFFFFF, true);
+            y += lineHeight;
+        }
+    }
+
+    void renderPanel(HudCanvas canvas, int x, int y) {
+        activeStyle.render(canvas, model, x, y);
+    }
+
+    private void selectStyle(int index) {
+        if (index == activeStyleIndex)
+            return;
+        activeStyleIndex = index;
+        activeStyle = styleImpls[index];
+        activeStyle.layout(model);
     }
 
     private void handleInput(MinecraftClient mc) {
         if (KeyBindings.TOGGLE_HUD.wasPressed())
             showHud = !showHud;
+        if (KeyBindings.TOGGLE_DEBUG.wasPressed())
+            showDebug = !showDebug;
         if (KeyBindings.INCREASE_SCALE.wasPressed())
             config.setHudScale(Math.min(config.getHudScale() + 0.1f, 2.0f));
         if (KeyBindings.DECREASE_SCALE.wasPressed())
@@ -188,92 +181,222 @@ public class HudOverlay {
             config.setHudScale(1.0f);
             config.setStyleIndex(0);
             config.setHudAnchor(0);
-            config.save();
             mc.setScreen(new ExcaliaConfigScreen(config));
         }
     }
 
-    private List<String> buildLines(VoteService service) {
-        List<String> lines = new ArrayList<>();
-        if (service.totalVotes == -1) {
-            lines.add("Chargement des votes...");
-        } else if (service.sites == null) {
-            lines.add("Erreur récupération votes, veuillez créer un compte sur le site de Excalia");
-        } else {
-            lines.add("Votes ce mois-ci : " + service.totalVotes);
-            for (Map.Entry<String, Long> entry : service.sites.entrySet()) {
-                long rem = entry.getValue() - System.currentTimeMillis();
-                boolean available = rem <= 0;
-                String timeStr = available
-                        ? "Disponible"
-                        : String.format("%02d:%02d", rem / 60000, (rem / 1000) % 60);
-                lines.add(getSiteName(entry.getKey()) + " : " + timeStr);
+    void rebuildModel(TextMeasurer measurer, VoteSnapshot snapshot, long now) {
+        HudRenderModel m = model;
+        m.snapshot = snapshot;
+        m.sourceVersion = snapshot.version();
+        m.displayedSecond = now / 1000;
+
+        buildLines(m, snapshot, now);
+        updatePulses(m);
+
+        int maxWidth = 0;
+        for (int i = 0; i < m.lineCount; i++) {
+            if (m.texts[i] == null) {
+                m.texts[i] = Text.literal(m.lines[i]);
+                String prefix = m.prefixes[i];
+                m.widths[i] = prefix == null ? measurer.width(m.lines[i])
+                        : measurer.width(prefix) + measurer.width(m.lines[i], prefix.length());
             }
+            maxWidth = Math.max(maxWidth, m.widths[i]);
         }
-        return lines;
+        m.maxWidth = m.lineCount == 0 ? 100 : maxWidth;
+        m.panelWidth = m.maxWidth + padding * 2;
+        m.panelHeight = m.lineCount * lineHeight + padding * 2;
+
+        int nearest = m.nearestReset(snapshot, now);
+        m.nearestLabel = nearest == -1 ? "Disponible" : CountdownFormatter.format(snapshot.resets()[nearest] - now);
+        m.totalLabel = snapshot.status() != VoteSnapshot.Status.OK ? "..."
+                : snapshot.stale() ? snapshot.totalVotes() + " (hors ligne)" : String.valueOf(snapshot.totalVotes());
+        m.nearestSiteName = nearest == -1 ? null : sites.name(m.siteIndex[nearest]);
+
+        selectStyle(config.getStyleIndex());
+        activeStyle.layout(m);
     }
 
-    private List<Integer> buildColors(MinecraftClient mc, VoteService service, long now) {
-        List<Integer> colors = new ArrayList<>();
-        if (service.totalVotes == -1) {
-            colors.add(0xAAAAAA);
-        } else if (service.sites == null) {
-            colors.add(0xFF5555);
-        } else {
-            colors.add(0x00FF88);
-            for (Map.Entry<String, Long> entry : service.sites.entrySet()) {
-                long rem = entry.getValue() - now;
-                boolean available = rem <= 0;
-                boolean wasAvailable = voteAvailability.getOrDefault(entry.getKey(), false);
-                if (available && !wasAvailable) {
-                    mc.player.playSound(
-                            Registries.SOUND_EVENT.get(Identifier.of("minecraft", "entity.experience_orb.pickup")),
-                            1.0f, 1.0f);
-                    animationTimers.put(entry.getKey(), now);
+    public boolean isDebugShown() {
+        return showDebug;
+    }
+
+    public void invalidateLayout() {
+        layoutInvalid = true;
+    }
+
+    public void onSiteAvailable(int siteId, long at) {
+        animationTimers.put(siteId, at);
+        pulsesChanged = true;
+    }
+
+    void buildLines(HudRenderModel m, VoteSnapshot snapshot, long now) {
+        boolean dataChanged = m.lineVersion != snapshot.version();
+        m.lineVersion = snapshot.version();
+        switch (snapshot.status()) {
+            case LOADING -> {
+                m.lineCount = 1;
+                if (dataChanged)
+                    setLine(m, 0, "Chargement des votes...");
+            }
+            case NOT_FOUND -> {
+                m.lineCount = 1;
+                if (dataChanged)
+                    setLine(m, 0, "Erreur récupération votes, veuillez créer un compte sur le site de Excalia");
+            }
+            case ERROR -> {
+                m.lineCount = 1;
+                if (dataChanged)
+                    setLine(m, 0, "Site d'Excalia injoignable, nouvel essai bientôt");
+            }
+            case OK -> {
+                int[] siteIds = snapshot.siteIds();
+                long[] resets = snapshot.resets();
+                m.ensureCapacity(siteIds.length);
+                if (dataChanged) {
+                    for (int i = 0; i < siteIds.length; i++) {
+                        m.siteIndex[i] = sites.intern(siteIds[i]);
+                        m.prefixes[i + 1] = sites.name(m.siteIndex[i]) + " : ";
+                    }
                 }
-                voteAvailability.put(entry.getKey(), available);
-
-                int color;
-                String style = styles[config.getStyleIndex()];
-                if (style.equals("Dégradé")) {
-                    double ratio = Math.max(0, Math.min(1, (double) rem / 7_200_000));
-                    color = ((int) (255 * ratio) << 16) | ((int) (255 * (1 - ratio)) << 8);
-                } else if (style.equals("Arc-en-ciel")) {
-                    float hue = ((now % 10000L) / 10000f + entry.getKey().hashCode()) % 1.0f;
-                    color = Color.HSBtoRGB(hue, 1f, 1f);
-                } else {
-                    color = available ? 0x00FF00 : 0xFFFFFF;
+                if (dataChanged)
+                    setLine(m, 0, "Votes ce mois-ci : " + snapshot.totalVotes()
+                            + (snapshot.stale() ? " (hors ligne)" : ""));
+                StringBuilder sb = m.scratch;
+                for (int i = 0; i < siteIds.length; i++) {
+                    long rem = resets[i] - now;
+                    boolean available = rem <= 0;
+                    m.available[i] = available;
+                    long key = available ? -1 : rem / 1000;
+                    if (!dataChanged && m.lineKeys[i + 1] == key)
+                        continue;
+                    m.lineKeys[i + 1] = key;
+                    String prefix = m.prefixes[i + 1];
+                    sb.setLength(0);
+                    sb.append(prefix);
+                    if (available)
+                        sb.append("Disponible");
+                    else
+                        CountdownFormatter.append(sb, rem);
+                    m.lines[i + 1] = sb.toString();
+                    m.texts[i + 1] = null;
                 }
+                m.lineCount = siteIds.length + 1;
+            }
+        }
+        if (m.accountCount > 0)
+            buildAccountLines(m, now);
+    }
 
-                if (available && animationTimers.containsKey(entry.getKey())) {
-                    long elapsed = now - animationTimers.get(entry.getKey());
-                    if (elapsed < animationDuration) {
-                        float alpha = (float) Math.sin(elapsed / 150.0f * Math.PI);
-                        color = ((int) (255 * alpha) << 24) | (color & 0xFFFFFF);
-                    } else {
-                        animationTimers.remove(entry.getKey());
+    private void collectAccounts(VoteService service) {
+        HudRenderModel m = model;
+        if (!config.isShowAllAccounts()) {
+            m.accountCount = 0;
+            return;
+        }
+        List<VoteStore.Entry> others = service.otherEntries();
+        m.ensureAccountCapacity(others.size());
+        for (int i = 0; i < others.size(); i++) {
+            VoteStore.Entry entry = others.get(i);
+            m.accountNames[i] = entry.username;
+            m.accountSnapshots[i] = entry.snapshot.get();
+        }
+        m.accountCount = others.size();
+    }
+
+    private void buildAccountLines(HudRenderModel m, long now) {
+        int base = m.lineCount;
+        m.ensureCapacity(base - 1 + m.accountCount);
+        StringBuilder sb = m.scratch;
+        for (int k = 0; k < m.accountCount; k++) {
+            VoteSnapshot account = m.accountSnapshots[k];
+            sb.setLength(0);
+            sb.append(m.accountNames[k]).append(" : ");
+            int ready = 0;
+            switch (account.status()) {
+                case LOADING -> sb.append("chargement...");
+                case NOT_FOUND -> sb.append("compte introuvable");
+                case ERROR -> sb.append("erreur");
+                case OK -> {
+                    long nearest = Long.MAX_VALUE;
+                    for (long reset : account.resets()) {
+                        long rem = reset - now;
+                        if (rem <= 0)
+                            ready++;
+                        else
+                            nearest = Math.min(nearest, rem);
+                    }
+                    sb.append(account.totalVotes()).append(" votes");
+                    if (ready > 0) {
+                        sb.append(", ").append(ready).append(" disponible(s)");
+                    } else if (nearest != Long.MAX_VALUE) {
+                        sb.append(", prochain ");
+                        CountdownFormatter.append(sb, nearest);
                     }
                 }
-                colors.add(color);
             }
+            m.accountReady[k] = ready > 0;
+            int index = base + k;
+            if (m.lines[index] == null || !m.lines[index].contentEquals(sb))
+                setLine(m, index, sb.toString());
         }
-        return colors;
+        m.lineCount = base + m.accountCount;
     }
 
-    private int calcWidth(MinecraftClient mc, List<String> lines) {
-        return lines.stream()
-                .mapToInt(s -> mc.textRenderer.getWidth(s))
-                .max().orElse(100);
+    private static void setLine(HudRenderModel m, int index, String line) {
+        m.lines[index] = line;
+        m.texts[index] = null;
+        m.prefixes[index] = null;
     }
 
-    private static String getSiteName(String id) {
-        return switch (id) {
-            case "2" -> "top-serveurs.net";
-            case "4" -> "www.serveursminecraft.org";
-            case "5" -> "serveur-prive.net";
-            case "6" -> "serveur-minecraft-vote.fr";
-            case "7" -> "www.serveur-minecraft.com";
-            default -> "Site #" + id;
-        };
+    private void updatePulses(HudRenderModel m) {
+        int[] siteIds = m.snapshot.siteIds();
+        for (int i = 0; i < siteIds.length; i++) {
+            Long start = m.available[i] ? animationTimers.get(siteIds[i]) : null;
+            m.pulseStart[i] = start == null ? 0 : start;
+        }
+    }
+
+    void buildColors(long now) {
+        HudRenderModel m = model;
+        VoteSnapshot snapshot = m.snapshot;
+        m.animating = false;
+        int accountBase = m.lineCount - m.accountCount;
+        for (int k = 0; k < m.accountCount; k++) {
+            VoteSnapshot.Status status = m.accountSnapshots[k].status();
+            m.colors[accountBase + k] = status == VoteSnapshot.Status.ERROR
+                    || status == VoteSnapshot.Status.NOT_FOUND ? 0xFF5555
+                    : m.accountReady[k] ? 0x00FF00 : 0xAAAAAA;
+        }
+        if (snapshot.status() == VoteSnapshot.Status.LOADING) {
+            m.colors[0] = 0xAAAAAA;
+            return;
+        }
+        if (snapshot.status() == VoteSnapshot.Status.ERROR || snapshot.status() == VoteSnapshot.Status.NOT_FOUND) {
+            m.colors[0] = 0xFF5555;
+            return;
+        }
+        m.colors[0] = snapshot.stale() ? 0xFFAA00 : 0x00FF88;
+        int[] siteIds = snapshot.siteIds();
+        long[] resets = snapshot.resets();
+        HudStyle style = activeStyle;
+        for (int i = 0; i < siteIds.length; i++) {
+            long rem = resets[i] - now;
+            boolean available = m.available[i];
+            int color = style.siteColor(siteIds[i], rem, available, now);
+
+            if (available && m.pulseStart[i] != 0) {
+                long elapsed = now - m.pulseStart[i];
+                if (elapsed < animationDuration) {
+                    color = ColorTables.pulse(elapsed, color);
+                    m.animating = true;
+                } else {
+                    m.pulseStart[i] = 0;
+                    animationTimers.remove(siteIds[i]);
+                }
+            }
+            m.colors[i + 1] = color;
+        }
     }
 }
@@ -0,0 +1,98 @@
+package com.clementfornes;
+
+import net.minecraft.text.Text;
+
+import java.util.Arrays;
+
+public class HudRenderModel {
+    int lineCount;
+    String[] lines = new String[8];
+    Text[] texts = new Text[8];
+    String[] prefixes = new String[8];
+    int[] widths = new int[8];
+    long[] lineKeys = new long[8];
+    int[] colors = new int[8];
+    int maxWidth;
+    int panelWidth;
+    int panelHeight;
+    long lineVersion = -1;
+    final StringBuilder scratch = new StringBuilder(64);
+
+    VoteSnapshot snapshot = VoteSnapshot.LOADING;
+    long sourceVersion = -1;
+    boolean[] available = new boolean[8];
+    int[] siteIndex = new int[8];
+    long[] pulseStart = new long[8];
+    boolean animating;
+    int[] resetOrder = new int[0];
+    int resetCursor;
+    long resetOrderVersion = -1;
+
+    int accountCount;
+    String[] accountNames = new String[0];
+    VoteSnapshot[] accountSnapshots = new VoteSnapshot[0];
+    boolean[] accountReady = new boolean[0];
+
+    String totalLabel = "...";
+    String nearestLabel = "Disponible";
+    String nearestSiteName;
+
+    long displayedSecond = Long.MIN_VALUE;
+
+    void ensureCapacity(int sites) {
+        int lineCapacity = sites + 1;
+        if (lines.length < lineCapacity) {
+            lines = Arrays.copyOf(lines, lineCapacity);
+            texts = Arrays.copyOf(texts, lineCapacity);
+            prefixes = Arrays.copyOf(prefixes, lineCapacity);
+            widths = Arrays.copyOf(widths, lineCapacity);
+            lineKeys = Arrays.copyOf(lineKeys, lineCapacity);
+            colors = Arrays.copyOf(colors, lineCapacity);
+        }
+        if (available.length < sites) {
+            available = Arrays.copyOf(available, sites);
+            siteIndex = Arrays.copyOf(siteIndex, sites);
+            pulseStart = Arrays.copyOf(pulseStart, sites);
+        }
+    }
+
+    void ensureAccountCapacity(int accounts) {
+        if (accountNames.length < accounts) {
+            accountNames = Arrays.copyOf(accountNames, accounts);
+            accountSnapshots = Arrays.copyOf(accountSnapshots, accounts);
+            accountReady = Arrays.copyOf(accountReady, accounts);
+        }
+    }
+
+    int nearestReset(VoteSnapshot snapshot, long now) {
+        long[] resets = snapshot.resets();
+        if (resetOrderVersion != snapshot.version() || resetOrder.length != resets.length) {
+            resetOrderVersion = snapshot.version();
+            resetOrder = sortByReset(resets);
+            resetCursor = 0;
+        }
+        while (resetCursor > 0 && resets[resetOrder[resetCursor - 1]] > now)
+            resetCursor--;
+        while (resetCursor < resetOrder.length && resets[resetOrder[resetCursor]] <= now)
+            resetCursor++;
+        return resetCursor < resetOrder.length ? resetOrder[resetCursor] : -1;
+    }
+
+    private static int[] sortByReset(long[] resets) {
+        int[] order = new int[resets.length];
+        for (int i = 0; i < order.length; i++) {
+            int j = i - 1;
+            while (j >= 0 && resets[order[j]] > resets[i]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = i;
+        }
+        return order;
+    }
+
+    boolean isStale(VoteSnapshot current, long now) {
+        return current.version() != sourceVersion
+                || now / 1000 != displayedSecond;
+    }
+}
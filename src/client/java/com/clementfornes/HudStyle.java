@@ -0,0 +1,20 @@
+package com.clementfornes;
+
+public interface HudStyle {
+    int PADDING = 6;
+    int LINE_HEIGHT = 13;
+
+    String name();
+
+    void layout(HudRenderModel model);
+
+    void render(HudCanvas canvas, HudRenderModel model, int x, int y);
+
+    default int animationFps() {
+        return 0;
+    }
+
+    default int siteColor(int siteId, long remaining, boolean available, long now) {
+        return available ? 0x00FF00 : 0xFFFFFF;
+    }
+}
@@ -13,6 +13,7 @@ public class KeyBindings {
     public static KeyBinding CYCLE_ANCHOR;
     public static KeyBinding OPEN_CONFIG;
     public static KeyBinding RESET_CONFIG;
+    public static KeyBinding TOGGLE_DEBUG;
 
     public static void register() {
         TOGGLE_HUD = create("toggle_hud", GLFW.GLFW_KEY_H);
@@ -22,6 +23,7 @@ public class KeyBindings {
         CYCLE_ANCHOR = create("cycle_anchor", GLFW.GLFW_KEY_K);
         OPEN_CONFIG = create("open_config", GLFW.GLFW_KEY_O);
         RESET_CONFIG = create("reset_config", GLFW.GLFW_KEY_R);
+        TOGGLE_DEBUG = create("toggle_debug", GLFW.GLFW_KEY_F9);
     }
 
     private static KeyBinding create(String name, int key) {
@@ -0,0 +1,22 @@
+package com.clementfornes;
+
+import net.minecraft.text.Text;
+
+public class MinimalStyle implements HudStyle {
+    private Text text;
+
+    @Override
+    public String name() {
+        return "Minimaliste";
+    }
+
+    @Override
+    public void layout(HudRenderModel model) {
+        text = Text.literal(model.totalLabel + " | " + model.nearestLabel);
+    }
+
+    @Override
+    public void render(HudCanvas canvas, HudRenderModel model, int x, int y) {
+        canvas.drawText(text, x, y, 0xFFFFFF, false);
+    }
+}
@@ -0,0 +1,60 @@
+package com.clementfornes;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class ModExecutors {
+    private final ExecutorService io = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("excaliavotemod-io-", 0).factory());
+    private final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "excaliavotemod-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ModExecutors() {
+        timer.setRemoveOnCancelPolicy(true);
+        timer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        timer.setContinueExistingPeriodicTasksAfterShutdownPolicy(false);
+    }
+
+    public ExecutorService io() {
+        return io;
+    }
+
+    public ScheduledExecutorService timer() {
+        return timer;
+    }
+
+    public ScheduledFuture<?> scheduleIoAtFixedRate(Runnable task, long period, TimeUnit unit) {
+        return timer.scheduleAtFixedRate(() -> runOnIo(task), period, period, unit);
+    }
+
+    private void runOnIo(Runnable task) {
+        try {
+            io.execute(task);
+        } catch (RejectedExecutionException ignored) {
+        }
+    }
+
+    public void shutdown(Logger logger) {
+        timer.shutdownNow();
+        io.shutdown();
+        try {
+            if (!io.awaitTermination(2, TimeUnit.SECONDS)) {
+                logger.warn("[ExcaliaVoteMod] Background I/O did not finish in time, interrupting");
+                io.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            io.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
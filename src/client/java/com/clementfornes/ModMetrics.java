@@ -0,0 +1,111 @@
+package com.clementfornes;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class ModMetrics {
+    public static final LatencyHistogram[] FRAME_NANOS = new LatencyHistogram[HudOverlay.styles.length];
+    public static final LatencyHistogram FRAME_ALLOCATED_BYTES = new LatencyHistogram();
+    public static final LatencyHistogram FETCH_NANOS = new LatencyHistogram();
+    public static final LongAdder FETCH_OK = new LongAdder();
+    public static final LongAdder FETCH_NOT_MODIFIED = new LongAdder();
+    public static final LongAdder FETCH_FAILED = new LongAdder();
+    public static final LongAdder FETCH_RETRIES = new LongAdder();
+    public static final LongAdder BYTES_RECEIVED = new LongAdder();
+    public static final LongAdder CONFIG_WRITES = new LongAdder();
+
+    private static final long MAX_CSV_BYTES = 1024 * 1024;
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+
+    static {
+        for (int i = 0; i < FRAME_NANOS.length; i++)
+            FRAME_NANOS[i] = new LatencyHistogram();
+    }
+
+    private ModMetrics() {
+    }
+
+    public static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    public static List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < FRAME_NANOS.length; i++) {
+            LatencyHistogram h = FRAME_NANOS[i];
+            if (h.count() > 0)
+                lines.add(String.format("%s: p50 %.1f µs, p99 %.1f µs (%d frames)", HudOverlay.styles[i],
+                        h.percentile(50) / 1000.0, h.percentile(99) / 1000.0, h.count()));
+        }
+        if (FRAME_ALLOCATED_BYTES.count() > 0)
+            lines.add(String.format("Alloc/frame: p50 %d B, p99 %d B",
+                    FRAME_ALLOCATED_BYTES.percentile(50), FRAME_ALLOCATED_BYTES.percentile(99)));
+        lines.add(String.format("Fetch: %d ok, %d 304, %d échecs, %d relances, p99 %d ms, %d Ko reçus",
+                FETCH_OK.sum(), FETCH_NOT_MODIFIED.sum(), FETCH_FAILED.sum(), FETCH_RETRIES.sum(),
+                FETCH_NANOS.percentile(99) / 1_000_000, BYTES_RECEIVED.sum() / 1024));
+        lines.add("Écritures config : " + CONFIG_WRITES.sum());
+        return lines;
+    }
+
+    public static void appendCsv(Path path) throws IOException {
+        String header = csvHeader();
+        if (Files.exists(path) && (Files.size(path) >= MAX_CSV_BYTES || !header.equals(firstLine(path))))
+            Files.move(path, path.resolveSibling(path.getFileName() + ".old"), StandardCopyOption.REPLACE_EXISTING);
+        StringBuilder row = new StringBuilder();
+        if (!Files.exists(path))
+            row.append(header).append('\n');
+        row.append(System.currentTimeMillis());
+        for (LatencyHistogram h : FRAME_NANOS)
+            row.append(',').append(h.count()).append(',').append(h.percentile(50)).append(',').append(h.percentile(99));
+        row.append(',').append(FRAME_ALLOCATED_BYTES.percentile(50))
+                .append(',').append(FRAME_ALLOCATED_BYTES.percentile(99))
+                .append(',').append(FETCH_OK.sum())
+                .append(',').append(FETCH_NOT_MODIFIED.sum())
+                .append(',').append(FETCH_FAILED.sum())
+                .append(',').append(FETCH_RETRIES.sum())
+                .append(',').append(FETCH_NANOS.percentile(50))
+                .append(',').append(FETCH_NANOS.percentile(99))
+                .append(',').append(BYTES_RECEIVED.sum())
+                .append(',').append(CONFIG_WRITES.sum())
+                .append('\n');
+        Files.writeString(path, row, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static String csvHeader() {
+        StringBuilder header = new StringBuilder("timestamp");
+        for (String style : HudOverlay.styles)
+            header.append(',').append(style).append("_frames,").append(style).append("_p50_ns,")
+                    .append(style).append("_p99_ns");
+        return header.append(",alloc_p50_bytes,alloc_p99_bytes,fetch_ok,fetch_304,fetch_failed,fetch_retries,")
+                .append("fetch_p50_ns,fetch_p99_ns,bytes_received,config_writes").toString();
+    }
+
+    private static String firstLine(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return reader.readLine();
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                    && bean.isThreadAllocatedMemorySupported()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+                return bean;
+            }
+        } catch (RuntimeException ignored) {
+        }
+        return null;
+    }
+}
@@ -0,0 +1,21 @@
+package com.clementfornes;
+
+public abstract class PanelStyle implements HudStyle {
+    @Override
+    public void layout(HudRenderModel model) {
+    }
+
+    @Override
+    public void render(HudCanvas canvas, HudRenderModel model, int x, int y) {
+        int width = model.panelWidth;
+        int height = model.panelHeight;
+        canvas.fill(x - 2, y - 2, x + width, y + height, 0x88000000);
+        canvas.drawBorder(x - 2, y - 2, width + 2, height + 2, 0xFFAAAAAA);
+
+        int ty = y + PADDING;
+        for (int i = 0; i < model.lineCount; i++) {
+            canvas.drawText(model.texts[i], x + PADDING, ty, model.colors[i], true);
+            ty += LINE_HEIGHT;
+        }
+    }
+}
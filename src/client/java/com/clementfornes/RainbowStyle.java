@@ -0,0 +1,18 @@
+package com.clementfornes;
+
+public class RainbowStyle extends PanelStyle {
+    @Override
+    public String name() {
+        return "Arc-en-ciel";
+    }
+
+    @Override
+    public int animationFps() {
+        return 20;
+    }
+
+    @Override
+    public int siteColor(int siteId, long remaining, boolean available, long now) {
+        return ColorTables.hue(now);
+    }
+}
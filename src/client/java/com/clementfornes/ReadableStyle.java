@@ -0,0 +1,30 @@
+package com.clementfornes;
+
+public class ReadableStyle implements HudStyle {
+    private static final int PAD = PADDING * 2;
+
+    private int width;
+    private int height;
+
+    @Override
+    public String name() {
+        return "Lisible";
+    }
+
+    @Override
+    public void layout(HudRenderModel model) {
+        width = model.maxWidth + PAD * 2;
+        height = model.lineCount * LINE_HEIGHT + PAD * 2;
+    }
+
+    @Override
+    public void render(HudCanvas canvas, HudRenderModel model, int x, int y) {
+        canvas.fill(x, y, x + width, y + height, 0xCCFFFFFF);
+        canvas.drawBorder(x, y, width + 1, height + 1, 0xFF000000);
+        int ty = y + PAD;
+        for (int i = 0; i < model.lineCount; i++) {
+            canvas.drawText(model.texts[i], x + PAD, ty, model.colors[i], false);
+            ty += LINE_HEIGHT;
+        }
+    }
+}
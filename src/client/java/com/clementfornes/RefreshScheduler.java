@@ -0,0 +1,99 @@
+package com.clementfornes;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+public class RefreshScheduler {
+    private static final long MIN_DELAY_MS = 30_000;
+    private static final long AVAILABLE_POLL_MS = 5 * 60_000;
+    private static final long IDLE_POLL_MS = 30 * 60_000;
+    private static final long MAX_JITTER_MS = 5_000;
+    private static final long BACKOFF_BASE_MS = 30_000;
+    private static final long BACKOFF_MAX_MS = 15 * 60_000;
+
+    private final ScheduledExecutorService scheduler;
+    private final VoteService service;
+    private final Logger logger;
+
+    private String username;
+    private ScheduledFuture<?> pending;
+    private int failures;
+    private long generation;
+
+    public RefreshScheduler(ScheduledExecutorService scheduler, VoteService service, Logger logger) {
+        this.scheduler = scheduler;
+        this.service = service;
+        this.logger = logger;
+    }
+
+    public synchronized void start(String username) {
+        stop();
+        this.username = username;
+        schedule(0);
+    }
+
+    public synchronized void stop() {
+        generation++;
+        failures = 0;
+        username = null;
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    private void schedule(long delayMs) {
+        long gen = generation;
+        pending = scheduler.schedule(() -> run(gen), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void run(long gen) {
+        synchronized (this) {
+            if (gen != generation)
+                return;
+        }
+        try {
+            service.evictExpired();
+            service.fetchAll(service.trackedUsers()).thenAccept(ok -> onFetched(gen, ok));
+        } catch (RuntimeException e) {
+            logger.warn("[ExcaliaVoteMod] Vote refresh failed to start", e);
+            onFetched(gen, false);
+        }
+    }
+
+    private synchronized void onFetched(long gen, boolean ok) {
+        if (gen != generation)
+            return;
+        long delay;
+        if (ok) {
+            failures = 0;
+            long now = System.currentTimeMillis();
+            delay = IDLE_POLL_MS;
+            for (String user : service.trackedUsers())
+                delay = Math.min(delay, nextDelay(service.snapshot(user), now));
+        } else {
+            failures++;
+            delay = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << Math.min(failures - 1, 10));
+        }
+        delay += ThreadLocalRandom.current().nextLong(MAX_JITTER_MS);
+        logger.debug("[ExcaliaVoteMod] Next vote refresh for {} in {} s", username, delay / 1000);
+        schedule(delay);
+    }
+
+    static long nextDelay(VoteSnapshot snapshot, long now) {
+        if (snapshot.status() != VoteSnapshot.Status.OK || snapshot.siteCount() == 0)
+            return IDLE_POLL_MS;
+        long nearest = Long.MAX_VALUE;
+        for (long reset : snapshot.resets()) {
+            long rem = reset - now;
+            if (rem <= 0)
+                return AVAILABLE_POLL_MS;
+            nearest = Math.min(nearest, rem);
+        }
+        return Math.max(MIN_DELAY_MS, Math.min(nearest, IDLE_POLL_MS));
+    }
+}
@@ -1,12 +1,53 @@
 package com.clementfornes;
 
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.client.network.ServerAddress;
+import net.minecraft.client.network.ServerInfo;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.Locale;
 
 public class ServerUtils {
-    public static boolean isExcaliaServer(MinecraftClient client) {
-        if (client.getCurrentServerEntry() == null)
+    private static volatile boolean excaliaSession;
+
+    public static boolean isExcaliaServer() {
+        return excaliaSession;
+    }
+
+    public static boolean detect(ClientPlayNetworkHandler handler, MinecraftClient client, ConfigManager config) {
+        excaliaSession = matches(client.getCurrentServerEntry(), handler.getConnection().getAddress(), config);
+        return excaliaSession;
+    }
+
+    public static void reset() {
+        excaliaSession = false;
+    }
+
+    static boolean matches(ServerInfo server, SocketAddress remote, ConfigManager config) {
+        if (server == null)
             return false;
-        return client.getCurrentServerEntry().address.toLowerCase()
-                .contains("excalia");
+        String host = ServerAddress.parse(server.address).getAddress().toLowerCase(Locale.ROOT);
+        if (matchesHost(host, config.getServerHosts()))
+            return true;
+        if (remote instanceof InetSocketAddress inet && inet.getAddress() != null
+                && config.getServerAddresses().contains(inet.getAddress().getHostAddress()))
+            return true;
+        String motd = config.getServerMotd();
+        return !motd.isEmpty() && server.label != null
+                && server.label.getString().toLowerCase(Locale.ROOT).contains(motd.toLowerCase(Locale.ROOT));
+    }
+
+    static boolean matchesHost(String host, List<String> patterns) {
+        for (String pattern : patterns) {
+            String p = pattern.toLowerCase(Locale.ROOT);
+            if (p.isEmpty())
+                continue;
+            if (p.indexOf('.') < 0 ? host.contains(p) : host.equals(p) || host.endsWith("." + p))
+                return true;
+        }
+        return false;
     }
 }
@@ -0,0 +1,179 @@
+package com.clementfornes;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.slf4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+public class SiteRegistry {
+    private static final String BUNDLED = "/assets/excaliavotemod/vote_sites.json";
+    private static final int MAX_REMOTE_BYTES = 64 * 1024;
+
+    private record Table(int[] ids, int[] indices, String[] names, String[] urls, long[] cooldownsMs) {
+    }
+
+    private final Logger logger;
+    private volatile Table table = new Table(new int[0], new int[0], new String[0], new String[0], new long[0]);
+
+    public SiteRegistry(Logger logger) {
+        this.logger = logger;
+    }
+
+    public static SiteRegistry bundled(Logger logger) {
+        SiteRegistry registry = new SiteRegistry(logger);
+        registry.loadBundled();
+        return registry;
+    }
+
+    public void loadBundled() {
+        try (InputStream in = SiteRegistry.class.getResourceAsStream(BUNDLED)) {
+            if (in == null) {
+                logger.warn("[ExcaliaVoteMod] Bundled vote site list is missing");
+                return;
+            }
+            merge(new InputStreamReader(in, StandardCharsets.UTF_8), BUNDLED);
+        } catch (Exception e) {
+            logger.warn("[ExcaliaVoteMod] Failed to read bundled vote site list", e);
+        }
+    }
+
+    public void loadOverride(Path path) {
+        if (!Files.exists(path))
+            return;
+        try (Reader reader = Files.newBufferedReader(path)) {
+            merge(reader, path.toString());
+        } catch (Exception e) {
+            logger.warn("[ExcaliaVoteMod] Failed to read vote site list {}", path, e);
+        }
+    }
+
+    public CompletableFuture<Void> loadRemote(String url, Executor ioExecutor) {
+        if (url == null || url.isBlank())
+            return CompletableFuture.completedFuture(null);
+        HttpRequest request;
+        try {
+            URI uri = URI.create(url.trim());
+            if (!"http".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(uri.getScheme()))
+                throw new IllegalArgumentException("unsupported scheme " + uri.getScheme());
+            request = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofSeconds(10))
+                    .header("Accept", "application/json")
+                    .GET()
+                    .build();
+        } catch (IllegalArgumentException e) {
+            logger.warn("[ExcaliaVoteMod] Ignoring invalid vote site list URL {}: {}", url, e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(ioExecutor)
+                .build();
+        return http.sendAsync(request, BoundedBodySubscriber.handler(MAX_REMOTE_BYTES))
+                .thenAccept(response -> {
+                    if (response.statusCode() != 200)
+                        throw new IllegalStateException("HTTP " + response.statusCode());
+                    merge(new InputStreamReader(new ByteArrayInputStream(response.body()), StandardCharsets.UTF_8), url);
+                })
+                .exceptionally(e -> {
+                    logger.warn("[ExcaliaVoteMod] Failed to load vote site list from {}: {}", url, e.toString());
+                    return null;
+                });
+    }
+
+    public int intern(int siteId) {
+        Table t = table;
+        int slot = Arrays.binarySearch(t.ids(), siteId);
+        if (slot >= 0)
+            return t.indices()[slot];
+        synchronized (this) {
+            return put(siteId, "Site #" + siteId, null, 0, false);
+        }
+    }
+
+    public String name(int index) {
+        return table.names()[index];
+    }
+
+    public String url(int index) {
+        return table.urls()[index];
+    }
+
+    public long cooldownMs(int index) {
+        return table.cooldownsMs()[index];
+    }
+
+    public int size() {
+        return table.names().length;
+    }
+
+    private synchronized void merge(Reader source, String origin) {
+        JsonObject root = JsonParser.parseReader(source).getAsJsonObject();
+        int loaded = 0;
+        for (JsonElement element : root.getAsJsonArray("sites")) {
+            try {
+                JsonObject site = element.getAsJsonObject();
+                int id = site.get("id").getAsInt();
+                String name = site.has("name") ? site.get("name").getAsString() : "Site #" + id;
+                String url = site.has("url") ? site.get("url").getAsString() : null;
+                long cooldown = site.has("cooldownMinutes") ? site.get("cooldownMinutes").getAsLong() * 60_000 : 0;
+                put(id, name, url, cooldown, true);
+                loaded++;
+            } catch (RuntimeException e) {
+                logger.warn("[ExcaliaVoteMod] Ignoring invalid vote site entry {} in {}", element, origin);
+            }
+        }
+        logger.info("[ExcaliaVoteMod] Loaded {} vote site(s) from {}", loaded, origin);
+    }
+
+    private int put(int siteId, String name, String url, long cooldownMs, boolean replace) {
+        Table t = table;
+        int slot = Arrays.binarySearch(t.ids(), siteId);
+        if (slot >= 0) {
+            int index = t.indices()[slot];
+            if (!replace)
+                return index;
+            String[] names = t.names().clone();
+            String[] urls = t.urls().clone();
+            long[] cooldowns = t.cooldownsMs().clone();
+            names[index] = name;
+            urls[index] = url;
+            cooldowns[index] = cooldownMs;
+            table = new Table(t.ids(), t.indices(), names, urls, cooldowns);
+            return index;
+        }
+        int insert = -slot - 1;
+        int index = t.names().length;
+        int[] ids = new int[t.ids().length + 1];
+        int[] indices = new int[ids.length];
+        System.arraycopy(t.ids(), 0, ids, 0, insert);
+        System.arraycopy(t.indices(), 0, indices, 0, insert);
+        ids[insert] = siteId;
+        indices[insert] = index;
+        System.arraycopy(t.ids(), insert, ids, insert + 1, t.ids().length - insert);
+        System.arraycopy(t.indices(), insert, indices, insert + 1, t.indices().length - insert);
+        String[] names = Arrays.copyOf(t.names(), index + 1);
+        String[] urls = Arrays.copyOf(t.urls(), index + 1);
+        long[] cooldowns = Arrays.copyOf(t.cooldownsMs(), index + 1);
+        names[index] = name;
+        urls[index] = url;
+        cooldowns[index] = cooldownMs;
+        table = new Table(ids, indices, names, urls, cooldowns);
+        return index;
+    }
+}
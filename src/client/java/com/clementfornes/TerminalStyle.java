@@ -0,0 +1,46 @@
+package com.clementfornes;
+
+import net.minecraft.text.Text;
+
+import java.util.Arrays;
+
+public class TerminalStyle implements HudStyle {
+    private Text border;
+    private int borderWidth = -1;
+    private String[] sources = new String[8];
+    private Text[] texts = new Text[8];
+
+    @Override
+    public String name() {
+        return "Terminal";
+    }
+
+    @Override
+    public void layout(HudRenderModel model) {
+        if (borderWidth != model.maxWidth) {
+            borderWidth = model.maxWidth;
+            border = Text.literal("+" + "-".repeat((model.maxWidth + PADDING * 2) / 6) + "+");
+        }
+        if (texts.length < model.lineCount) {
+            sources = Arrays.copyOf(sources, model.lines.length);
+            texts = Arrays.copyOf(texts, model.lines.length);
+        }
+        for (int i = 0; i < model.lineCount; i++) {
+            if (sources[i] != model.lines[i]) {
+                sources[i] = model.lines[i];
+                texts[i] = Text.literal("| " + model.lines[i]);
+            }
+        }
+    }
+
+    @Override
+    public void render(HudCanvas canvas, HudRenderModel model, int x, int y) {
+        canvas.drawText(border, x, y, 0x00FF00, false);
+        int ty = y + LINE_HEIGHT;
+        for (int i = 0; i < model.lineCount; i++) {
+            canvas.drawText(texts[i], x, ty, 0x00FF00, false);
+            ty += LINE_HEIGHT;
+        }
+        canvas.drawText(border, x, ty, 0x00FF00, false);
+    }
+}
@@ -0,0 +1,10 @@
+package com.clementfornes;
+
+@FunctionalInterface
+public interface TextMeasurer {
+    int width(String text);
+
+    default int width(String text, int from) {
+        return width(text.substring(from));
+    }
+}
@@ -0,0 +1,54 @@
+package com.clementfornes;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TextWidthCache implements TextMeasurer {
+    private final TextMeasurer delegate;
+    private final Map<String, Integer> widths;
+    private final int[] asciiWidths = new int[128];
+
+    public TextWidthCache(TextMeasurer delegate, int maxEntries) {
+        this.delegate = delegate;
+        this.widths = new LinkedHashMap<>(maxEntries, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        Arrays.fill(asciiWidths, -1);
+    }
+
+    @Override
+    public int width(String text) {
+        Integer cached = widths.get(text);
+        if (cached != null)
+            return cached;
+        int width = delegate.width(text);
+        widths.put(text, width);
+        return width;
+    }
+
+    // Countdown suffixes change every second, so they are summed from per-glyph advances instead of
+    // being cached by full text; unstyled text width is additive in the vanilla renderer.
+    @Override
+    public int width(String text, int from) {
+        int width = 0;
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= asciiWidths.length)
+                return delegate.width(text.substring(from));
+            int advance = asciiWidths[c];
+            if (advance < 0)
+                advance = asciiWidths[c] = delegate.width(String.valueOf(c));
+            width += advance;
+        }
+        return width;
+    }
+
+    public void clear() {
+        widths.clear();
+        Arrays.fill(asciiWidths, -1);
+    }
+}
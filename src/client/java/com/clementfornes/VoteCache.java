@@ -0,0 +1,94 @@
+package com.clementfornes;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.slf4j.Logger;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class VoteCache {
+    private final Path path;
+    private final Executor ioExecutor;
+    private final Logger logger;
+    private final Map<String, VoteSnapshot> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean writeQueued = new AtomicBoolean();
+
+    public VoteCache(Path path, Executor ioExecutor, Logger logger) {
+        this.path = path;
+        this.ioExecutor = ioExecutor;
+        this.logger = logger;
+    }
+
+    public void load() {
+        if (!Files.exists(path))
+            return;
+        try (Reader reader = Files.newBufferedReader(path)) {
+            JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
+            for (Map.Entry<String, JsonElement> user : root.entrySet()) {
+                try {
+                    entries.put(key(user.getKey()), readEntry(user.getValue().getAsJsonObject()));
+                } catch (Exception e) {
+                    logger.warn("[ExcaliaVoteMod] Ignoring corrupt vote cache entry for {}", user.getKey());
+                }
+            }
+            logger.info("[ExcaliaVoteMod] Loaded cached vote data for {} account(s)", entries.size());
+        } catch (Exception e) {
+            logger.warn("[ExcaliaVoteMod] Failed to load vote cache, starting empty", e);
+        }
+    }
+
+    public VoteSnapshot get(String username) {
+        return entries.get(key(username));
+    }
+
+    public void put(String username, VoteSnapshot snapshot) {
+        if (snapshot.status() != VoteSnapshot.Status.OK)
+            return;
+        entries.put(key(username), snapshot);
+        if (writeQueued.compareAndSet(false, true))
+            ioExecutor.execute(this::write);
+    }
+
+    private void write() {
+        writeQueued.set(false);
+        JsonObject root = new JsonObject();
+        for (Map.Entry<String, VoteSnapshot> entry : entries.entrySet())
+            root.add(entry.getKey(), writeEntry(entry.getValue()));
+        try {
+            AtomicFiles.writeString(path, root.toString());
+        } catch (Exception e) {
+            logger.error("[ExcaliaVoteMod] Failed to save vote cache", e);
+        }
+    }
+
+    private static JsonObject writeEntry(VoteSnapshot snapshot) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("votes", snapshot.totalVotes());
+        obj.addProperty("fetchedAt", snapshot.fetchedAt());
+        JsonObject sites = new JsonObject();
+        int[] ids = snapshot.siteIds();
+        long[] resets = snapshot.resets();
+        for (int i = 0; i < ids.length; i++)
+            sites.addProperty(Integer.toString(ids[i]), resets[i]);
+        obj.add("sites", sites);
+        return obj;
+    }
+
+    private static VoteSnapshot readEntry(JsonObject obj) throws VoteParseException {
+        VoteDecoder.Payload payload = VoteDecoder.decode(new StringReader(obj.toString()));
+        return VoteSnapshot.of(0, payload, obj.get("fetchedAt").getAsLong());
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,114 @@
+package com.clementfornes;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class VoteDecoder {
+    public record Payload(int votes, int[] siteIds, long[] resets, int skipped) {
+    }
+
+    public static Payload decode(byte[] body) throws VoteParseException {
+        return decode(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+    }
+
+    public static Payload decode(Reader source) throws VoteParseException {
+        JsonReader reader = new JsonReader(source);
+        try {
+            return readRoot(reader);
+        } catch (VoteParseException e) {
+            throw e;
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new VoteParseException(reader.getPath(),
+                    "Malformed vote payload: " + e.getClass().getSimpleName(), e);
+        }
+    }
+
+    private static Payload readRoot(JsonReader reader) throws IOException {
+        int votes = -1;
+        boolean hasVotes = false;
+        int[] ids = null;
+        long[] resets = null;
+        int count = 0;
+        int skipped = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("votes") && reader.peek() == JsonToken.NUMBER) {
+                votes = reader.nextInt();
+                hasVotes = true;
+            } else if (name.equals("sites") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                ids = new int[8];
+                resets = new long[8];
+                count = 0;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String key = reader.nextName();
+                    int id;
+                    long reset;
+                    try {
+                        id = Integer.parseInt(key);
+                        JsonToken token = reader.peek();
+                        if (token == JsonToken.NULL) {
+                            reader.nextNull();
+                            reset = 0;
+                        } else if (token == JsonToken.NUMBER || token == JsonToken.STRING) {
+                            reset = reader.nextLong();
+                        } else {
+                            reader.skipValue();
+                            skipped++;
+                            continue;
+                        }
+                    } catch (NumberFormatException e) {
+                        reader.skipValue();
+                        skipped++;
+                        continue;
+                    }
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2);
+                        resets = Arrays.copyOf(resets, count * 2);
+                    }
+                    ids[count] = id;
+                    resets[count] = reset;
+                    count++;
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!hasVotes)
+            throw new VoteParseException(reader.getPath(), "Missing numeric field 'votes'");
+        if (ids == null)
+            throw new VoteParseException(reader.getPath(), "Missing object field 'sites'");
+
+        ids = Arrays.copyOf(ids, count);
+        resets = Arrays.copyOf(resets, count);
+        sortById(ids, resets);
+        return new Payload(votes, ids, resets, skipped);
+    }
+
+    private static void sortById(int[] ids, long[] resets) {
+        for (int i = 1; i < ids.length; i++) {
+            int id = ids[i];
+            long reset = resets[i];
+            int j = i - 1;
+            while (j >= 0 && ids[j] > id) {
+                ids[j + 1] = ids[j];
+                resets[j + 1] = resets[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            resets[j + 1] = reset;
+        }
+    }
+}
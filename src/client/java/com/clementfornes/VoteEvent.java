@@ -0,0 +1,14 @@
+package com.clementfornes;
+
+public sealed interface VoteEvent {
+    String username();
+
+    record DataRefreshed(String username, VoteSnapshot snapshot) implements VoteEvent {
+    }
+
+    record SiteAvailable(String username, int siteId, long at) implements VoteEvent {
+    }
+
+    record FetchFailed(String username, Throwable cause) implements VoteEvent {
+    }
+}
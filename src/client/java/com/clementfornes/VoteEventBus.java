@@ -0,0 +1,54 @@
+package com.clementfornes;
+
+import org.slf4j.Logger;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+public class VoteEventBus {
+    private record Subscription(Class<? extends VoteEvent> type, Consumer<VoteEvent> listener) {
+    }
+
+    private static final Subscription[] NONE = new Subscription[0];
+
+    private final AtomicReference<Subscription[]> subscriptions = new AtomicReference<>(NONE);
+    private final Logger logger;
+
+    public VoteEventBus(Logger logger) {
+        this.logger = logger;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends VoteEvent> Runnable subscribe(Class<T> type, Consumer<? super T> listener) {
+        Subscription subscription = new Subscription(type, event -> ((Consumer<VoteEvent>) listener).accept(event));
+        subscriptions.updateAndGet(current -> {
+            Subscription[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = subscription;
+            return next;
+        });
+        return () -> subscriptions.updateAndGet(current -> {
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == subscription) {
+                    Subscription[] next = new Subscription[current.length - 1];
+                    System.arraycopy(current, 0, next, 0, i);
+                    System.arraycopy(current, i + 1, next, i, next.length - i);
+                    return next;
+                }
+            }
+            return current;
+        });
+    }
+
+    public void publish(VoteEvent event) {
+        for (Subscription subscription : subscriptions.get()) {
+            if (!subscription.type().isInstance(event))
+                continue;
+            try {
+                subscription.listener().accept(event);
+            } catch (RuntimeException e) {
+                logger.error("[ExcaliaVoteMod] Vote event listener failed on {}", event.getClass().getSimpleName(), e);
+            }
+        }
+    }
+}
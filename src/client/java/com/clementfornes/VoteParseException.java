@@ -0,0 +1,20 @@
+package com.clementfornes;
+
+import java.io.IOException;
+
+public class VoteParseException extends IOException {
+    private final String path;
+
+    public VoteParseException(String path, String message, Throwable cause) {
+        super(message, cause);
+        this.path = path;
+    }
+
+    public VoteParseException(String path, String message) {
+        this(path, message, null);
+    }
+
+    public String getPath() {
+        return path;
+    }
+}
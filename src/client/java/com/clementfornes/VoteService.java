@@ -1,49 +1,406 @@
 package com.clementfornes;
 
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import org.slf4j.Logger;
 
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
+import java.io.IOException;
 import java.net.URI;
-import java.util.Map;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class VoteService {
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final long TOTAL_TIMEOUT_MS = 15_000;
+    private static final int MAX_BODY_BYTES = 256 * 1024;
+    private static final int MAX_RETRIES = 2;
+    private static final long RETRY_BASE_MS = 2_000;
+    private static final int BREAKER_THRESHOLD = 3;
+    private static final long BREAKER_OPEN_MS = 60_000;
+    private static final long BREAKER_MAX_OPEN_MS = 15 * 60_000;
+    private static final long STORE_TTL_MS = 2 * 60 * 60_000;
+    private static final int MAX_ACCOUNTS = 16;
+
     private final String endpoint;
     private final Logger logger;
+    private final HttpClient http;
+    private final VoteCache cache;
+    private final VoteEventBus events;
+
+    private final VoteStore store = new VoteStore(STORE_TTL_MS, MAX_ACCOUNTS);
+    private final AtomicLong versions = new AtomicLong();
 
-    public int totalVotes = -1;
-    public Map<String, Long> sites;
+    private final ConcurrentMap<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<?>> exchanges = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(BREAKER_THRESHOLD, BREAKER_OPEN_MS, BREAKER_MAX_OPEN_MS);
+    private final Executor retryExecutor;
 
-    public VoteService(String endpointBase, Logger logger) {
+    private volatile String activeUser;
+    private volatile List<String> tracked = List.of();
+    private volatile VoteStore.Entry activeEntry;
+    private volatile List<VoteStore.Entry> trackedEntries = List.of();
+
+    public VoteService(String endpointBase, Logger logger, ExecutorService ioExecutor,
+                       VoteCache cache, VoteEventBus events) {
+        this(endpointBase, logger, newHttpClient(ioExecutor), cache, events);
+    }
+
+    public VoteService(String endpointBase, Logger logger, HttpClient http, VoteCache cache, VoteEventBus events) {
         this.endpoint = endpointBase;
         this.logger = logger;
+        this.http = http;
+        this.retryExecutor = http.executor().orElse(Runnable::run);
+        this.cache = cache;
+        this.events = events;
+    }
+
+    public void restore(String username) {
+        activeUser = username;
+        track(tracked);
     }
 
-    public CompletableFuture<Void> fetch(String username) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                URI uri = URI.create(endpoint + username);
-                HttpURLConnection conn = (HttpURLConnection) uri.toURL().openConnection();
-                conn.setRequestMethod("GET");
-                JsonObject json = JsonParser.parseReader(
-                        new InputStreamReader(conn.getInputStream())).getAsJsonObject();
-
-                totalVotes = json.get("votes").getAsInt();
-                sites = json.getAsJsonObject("sites").entrySet().stream()
-                        .collect(Collectors.toMap(
-                                Map.Entry::getKey,
-                                e -> e.getValue().getAsLong()));
-                logger.info("[ExcaliaVoteMod] Successfully fetched vote data for {}", username);
-            } catch (Exception e) {
-                totalVotes = -1;
-                sites = null;
-                logger.error("[ExcaliaVoteMod] Failed to fetch vote data for {}: {}",
-                        username, e.getMessage());
+    public synchronized void track(List<String> others) {
+        List<String> users = new ArrayList<>();
+        String active = activeUser;
+        if (active != null)
+            users.add(active);
+        for (String other : others) {
+            String name = other.trim();
+            if (!name.isEmpty() && !containsIgnoreCase(users, name))
+                users.add(name);
+        }
+        List<VoteStore.Entry> entries = new ArrayList<>(users.size());
+        for (String username : users)
+            entries.add(seed(username));
+        int first = active == null ? 0 : 1;
+        tracked = List.copyOf(users.subList(first, users.size()));
+        trackedEntries = List.copyOf(entries.subList(first, entries.size()));
+        activeEntry = active == null ? null : entries.get(0);
+        store.evict(System.currentTimeMillis(), users);
+    }
+
+    public List<String> trackedUsers() {
+        String active = activeUser;
+        List<String> others = tracked;
+        if (active == null)
+            return others;
+        List<String> users = new ArrayList<>(others.size() + 1);
+        users.add(active);
+        users.addAll(others);
+        return users;
+    }
+
+    public String activeUser() {
+        return activeUser;
+    }
+
+    List<VoteStore.Entry> otherEntries() {
+        return trackedEntries;
+    }
+
+    private VoteStore.Entry seed(String username) {
+        VoteStore.Entry entry = store.entry(username, System.currentTimeMillis());
+        VoteSnapshot current = entry.snapshot.get();
+        if (current.status() != VoteSnapshot.Status.OK) {
+            VoteSnapshot cached = cache == null ? null : cache.get(username);
+            if (cached == null)
+                return entry;
+            current = cached.asRevalidating(versions.incrementAndGet());
+            entry.snapshot.set(current);
+            logger.info("[ExcaliaVoteMod] Restored cached vote data for {}", username);
+        }
+        events.publish(new VoteEvent.DataRefreshed(username, current));
+        return entry;
+    }
+
+    public CompletableFuture<Boolean> fetchAll(Collection<String> usernames) {
+        List<CompletableFuture<Boolean>> fetches = new ArrayList<>(usernames.size());
+        for (String username : usernames)
+            fetches.add(fetch(username));
+        return CompletableFuture.allOf(fetches.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> {
+                    for (CompletableFuture<Boolean> f : fetches) {
+                        if (!f.join())
+                            return false;
+                    }
+                    return true;
+                });
+    }
+
+    public CompletableFuture<Boolean> fetch(String username) {
+        String key = VoteStore.key(username);
+        CompletableFuture<Boolean> pending = inFlight.get(key);
+        if (pending != null)
+            return pending;
+        CompletableFuture<Boolean> started = new CompletableFuture<>();
+        pending = inFlight.putIfAbsent(key, started);
+        if (pending != null)
+            return pending;
+        CompletableFuture<Boolean> sent;
+        try {
+            sent = send(username);
+        } catch (RuntimeException e) {
+            logger.warn("[ExcaliaVoteMod] Could not start vote fetch for {}: {}", username, e.toString());
+            sent = CompletableFuture.completedFuture(false);
+        }
+        sent.whenComplete((ok, e) -> {
+            inFlight.remove(key, started);
+            started.complete(ok != null && ok);
+        });
+        return started;
+    }
+
+    private CompletableFuture<Boolean> send(String username) {
+        VoteStore.Entry entry = store.entry(username, System.currentTimeMillis());
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        if (!breaker.tryAcquire(System.currentTimeMillis())) {
+            logger.debug("[ExcaliaVoteMod] Vote endpoint circuit open, serving cached data for {}", username);
+            markStale(entry);
+            result.complete(false);
+            return result;
+        }
+        try {
+            attempt(entry, 0, generation.get(), result);
+        } catch (RuntimeException e) {
+            breaker.release();
+            throw e;
+        }
+        return result;
+    }
+
+    private void attempt(VoteStore.Entry entry, int attempt, long gen, CompletableFuture<Boolean> result) {
+        if (gen != generation.get()) {
+            breaker.release();
+            logger.debug("[ExcaliaVoteMod] Dropped pending vote fetch retry for {}", entry.username);
+            result.complete(false);
+            return;
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(endpoint + pathSegment(entry.username)))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json")
+                .GET();
+        synchronized (entry) {
+            if (entry.etag != null)
+                request.header("If-None-Match", entry.etag);
+            if (entry.lastModified != null)
+                request.header("If-Modified-Since", entry.lastModified);
+        }
+        long start = System.nanoTime();
+        String key = VoteStore.key(entry.username);
+        CompletableFuture<HttpResponse<byte[]>> sent = http
+                .sendAsync(request.build(), BoundedBodySubscriber.handler(MAX_BODY_BYTES));
+        // orTimeout only completes the stage it is applied to, so abort the underlying exchange
+        // as well; otherwise a server trickling the body keeps the connection busy.
+        CompletableFuture<HttpResponse<byte[]>> exchange = sent.copy()
+                .orTimeout(TOTAL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        exchanges.put(key, exchange);
+        if (gen != generation.get())
+            exchange.cancel(true);
+        exchange.whenComplete((response, error) -> {
+            exchanges.remove(key, exchange);
+            if (error != null)
+                sent.cancel(true);
+            Throwable failure = error;
+            if (failure == null && gen != generation.get())
+                failure = new CancellationException("vote fetch outlived its connection");
+            if (failure == null) {
+                ModMetrics.FETCH_NANOS.record(System.nanoTime() - start);
+                try {
+                    handleResponse(entry, response);
+                    breaker.onSuccess();
+                    result.complete(true);
+                    return;
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+            if (cause instanceof CancellationException || gen != generation.get()) {
+                breaker.release();
+                logger.debug("[ExcaliaVoteMod] Cancelled vote fetch for {}", entry.username);
+                result.complete(false);
+                return;
+            }
+            if (!isTransient(cause)) {
+                breaker.onSuccess();
+                onFailure(entry, cause);
+                result.complete(false);
+                return;
+            }
+            long now = System.currentTimeMillis();
+            breaker.onFailure(now);
+            if (attempt < MAX_RETRIES && breaker.tryAcquire(now)) {
+                long delay = ThreadLocalRandom.current().nextLong(RETRY_BASE_MS << attempt) + 1;
+                ModMetrics.FETCH_RETRIES.increment();
+                logger.debug("[ExcaliaVoteMod] Retrying vote fetch for {} in {} ms ({})",
+                        entry.username, delay, cause.toString());
+                CompletableFuture<Void> retry = CompletableFuture.runAsync(
+                        () -> attempt(entry, attempt + 1, gen, result),
+                        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, retryExecutor));
+                exchanges.put(key, retry);
+                if (gen != generation.get())
+                    retry.cancel(false);
+                retry.whenComplete((v, e) -> {
+                    exchanges.remove(key, retry);
+                    if (e != null) {
+                        breaker.release();
+                        result.complete(false);
+                    }
+                });
+                return;
             }
+            onFailure(entry, cause);
+            result.complete(false);
         });
     }
+
+    private void onFailure(VoteStore.Entry entry, Throwable cause) {
+        String username = entry.username;
+        ModMetrics.FETCH_FAILED.increment();
+        synchronized (entry) {
+            entry.etag = null;
+            entry.lastModified = null;
+        }
+        events.publish(new VoteEvent.FetchFailed(username, cause));
+        if (cause instanceof VoteParseException parse) {
+            logger.warn("[ExcaliaVoteMod] Ignoring unreadable vote data for {} ({}): {}",
+                    username, parse.getPath(), parse.getMessage());
+            markStale(entry);
+            return;
+        }
+        if (markStale(entry)) {
+            logger.warn("[ExcaliaVoteMod] Failed to refresh vote data for {}, keeping last known values: {}",
+                    username, cause.toString());
+            return;
+        }
+        entry.snapshot.set(VoteSnapshot.error(versions.incrementAndGet(), System.currentTimeMillis()));
+        logger.error("[ExcaliaVoteMod] Failed to fetch vote data for {}: {}", username, cause.toString());
+    }
+
+    private boolean markStale(VoteStore.Entry entry) {
+        VoteSnapshot current = entry.snapshot.get();
+        if (current.status() != VoteSnapshot.Status.OK)
+            return false;
+        if (!current.stale())
+            entry.snapshot.compareAndSet(current, current.asStale(versions.incrementAndGet()));
+        return true;
+    }
+
+    private static boolean isTransient(Throwable cause) {
+        if (cause instanceof HttpStatusException status)
+            return status.statusCode >= 500 || status.statusCode == 429;
+        return cause instanceof IOException && !(cause instanceof VoteParseException)
+                || cause instanceof TimeoutException;
+    }
+
+    private void handleResponse(VoteStore.Entry entry, HttpResponse<byte[]> response) {
+        String username = entry.username;
+        if (response.statusCode() == 304) {
+            ModMetrics.FETCH_NOT_MODIFIED.increment();
+            entry.snapshot.updateAndGet(s -> s.freshness() != VoteSnapshot.Freshness.FRESH
+                    ? s.asFresh(versions.incrementAndGet(), System.currentTimeMillis())
+                    : s.withFetchedAt(System.currentTimeMillis()));
+            logger.debug("[ExcaliaVoteMod] Vote data unchanged for {}", username);
+            return;
+        }
+        if (response.statusCode() == 404) {
+            entry.snapshot.set(VoteSnapshot.notFound(versions.incrementAndGet(), System.currentTimeMillis()));
+            logger.info("[ExcaliaVoteMod] No Excalia account found for {}", username);
+            return;
+        }
+        if (response.statusCode() != 200)
+            throw new CompletionException(new HttpStatusException(response.statusCode()));
+
+        ModMetrics.BYTES_RECEIVED.add(response.body().length);
+        VoteDecoder.Payload payload;
+        try {
+            payload = VoteDecoder.decode(response.body());
+        } catch (VoteParseException e) {
+            throw new CompletionException(e);
+        }
+        if (payload.skipped() > 0)
+            logger.warn("[ExcaliaVoteMod] Skipped {} malformed vote site entries for {}",
+                    payload.skipped(), username);
+        VoteSnapshot fresh = VoteSnapshot.of(versions.incrementAndGet(), payload, System.currentTimeMillis());
+        entry.snapshot.set(fresh);
+        if (cache != null)
+            cache.put(username, fresh);
+
+        synchronized (entry) {
+            entry.etag = response.headers().firstValue("ETag").orElse(null);
+            entry.lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+        }
+        ModMetrics.FETCH_OK.increment();
+        events.publish(new VoteEvent.DataRefreshed(username, fresh));
+        logger.info("[ExcaliaVoteMod] Successfully fetched vote data for {}", username);
+    }
+
+    public VoteSnapshot snapshot() {
+        VoteStore.Entry active = activeEntry;
+        return active == null ? VoteSnapshot.LOADING : active.snapshot.get();
+    }
+
+    public VoteSnapshot snapshot(String username) {
+        VoteSnapshot current = store.get(username);
+        return current == null ? VoteSnapshot.LOADING : current;
+    }
+
+    public void cancelAll() {
+        generation.incrementAndGet();
+        for (CompletableFuture<?> exchange : exchanges.values())
+            exchange.cancel(true);
+    }
+
+    public void evictExpired() {
+        store.evict(System.currentTimeMillis(), trackedUsers());
+    }
+
+    private static String pathSegment(String username) {
+        return URLEncoder.encode(username.trim(), StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private static boolean containsIgnoreCase(List<String> users, String username) {
+        for (String user : users) {
+            if (user.equalsIgnoreCase(username))
+                return true;
+        }
+        return false;
+    }
+
+    private static HttpClient newHttpClient(ExecutorService executor) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+
+    private static class HttpStatusException extends IOException {
+        final int statusCode;
+
+        HttpStatusException(int statusCode) {
+            super("HTTP " + statusCode);
+            this.statusCode = statusCode;
+        }
+    }
 }
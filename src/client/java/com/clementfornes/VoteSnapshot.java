@@ -0,0 +1,53 @@
+package com.clementfornes;
+
+public record VoteSnapshot(long version, Status status, int totalVotes,
+                           int[] siteIds, long[] resets, long fetchedAt, Freshness freshness) {
+    public enum Status {
+        LOADING, OK, NOT_FOUND, ERROR
+    }
+
+    // REVALIDATING: restored from the disk cache, first fetch pending. STALE: the last fetch failed.
+    public enum Freshness {
+        FRESH, REVALIDATING, STALE
+    }
+
+    public static final VoteSnapshot LOADING = new VoteSnapshot(0, Status.LOADING, -1,
+            new int[0], new long[0], 0, Freshness.FRESH);
+
+    public static VoteSnapshot of(long version, VoteDecoder.Payload payload, long fetchedAt) {
+        return new VoteSnapshot(version, Status.OK, payload.votes(),
+                payload.siteIds(), payload.resets(), fetchedAt, Freshness.FRESH);
+    }
+
+    public static VoteSnapshot error(long version, long fetchedAt) {
+        return new VoteSnapshot(version, Status.ERROR, -1, new int[0], new long[0], fetchedAt, Freshness.FRESH);
+    }
+
+    public static VoteSnapshot notFound(long version, long fetchedAt) {
+        return new VoteSnapshot(version, Status.NOT_FOUND, -1, new int[0], new long[0], fetchedAt, Freshness.FRESH);
+    }
+
+    public VoteSnapshot withFetchedAt(long fetchedAt) {
+        return new VoteSnapshot(version, status, totalVotes, siteIds, resets, fetchedAt, freshness);
+    }
+
+    public VoteSnapshot asFresh(long version, long fetchedAt) {
+        return new VoteSnapshot(version, status, totalVotes, siteIds, resets, fetchedAt, Freshness.FRESH);
+    }
+
+    public VoteSnapshot asRevalidating(long version) {
+        return new VoteSnapshot(version, status, totalVotes, siteIds, resets, fetchedAt, Freshness.REVALIDATING);
+    }
+
+    public VoteSnapshot asStale(long version) {
+        return new VoteSnapshot(version, status, totalVotes, siteIds, resets, fetchedAt, Freshness.STALE);
+    }
+
+    public boolean stale() {
+        return freshness == Freshness.STALE;
+    }
+
+    public int siteCount() {
+        return siteIds.length;
+    }
+}
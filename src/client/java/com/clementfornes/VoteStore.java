@@ -0,0 +1,79 @@
+package com.clementfornes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class VoteStore {
+    static final class Entry {
+        final String username;
+        final AtomicReference<VoteSnapshot> snapshot = new AtomicReference<>(VoteSnapshot.LOADING);
+        volatile long touchedAt;
+        String etag;
+        String lastModified;
+
+        Entry(String username) {
+            this.username = username;
+        }
+    }
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMs;
+    private final int maxEntries;
+
+    public VoteStore(long ttlMs, int maxEntries) {
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+    }
+
+    Entry entry(String username, long now) {
+        Entry entry = entries.computeIfAbsent(key(username), k -> new Entry(username));
+        entry.touchedAt = now;
+        return entry;
+    }
+
+    public VoteSnapshot get(String username) {
+        Entry entry = entries.get(key(username));
+        return entry == null ? null : entry.snapshot.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int evict(long now, Collection<String> pinned) {
+        Set<String> keep = new HashSet<>();
+        for (String username : pinned)
+            keep.add(key(username));
+        int removed = 0;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (!keep.contains(e.getKey()) && now - e.getValue().touchedAt > ttlMs
+                    && entries.remove(e.getKey(), e.getValue()))
+                removed++;
+        }
+        if (entries.size() <= maxEntries)
+            return removed;
+        List<Entry> candidates = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (!keep.contains(e.getKey()))
+                candidates.add(e.getValue());
+        }
+        candidates.sort((a, b) -> Long.compare(a.touchedAt, b.touchedAt));
+        for (int i = 0; i < candidates.size() && entries.size() > maxEntries; i++) {
+            if (entries.remove(key(candidates.get(i).username), candidates.get(i)))
+                removed++;
+        }
+        return removed;
+    }
+
+    static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,55 @@
+package com.clementfornes;
+
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+public class BenchmarkFixtures {
+    public static final long NOW = 1_750_000_000_000L;
+    public static final TextMeasurer MEASURER = text -> text.length() * 6;
+    public static final int[] SITE_IDS = {2, 4, 5, 6, 7};
+
+    public static VoteSnapshot snapshot(int sites) {
+        int[] ids = new int[sites];
+        long[] resets = new long[sites];
+        for (int i = 0; i < sites; i++) {
+            ids[i] = i < SITE_IDS.length ? SITE_IDS[i] : 100 + i;
+            resets[i] = i % 3 == 0 ? NOW - 60_000 : NOW + (i + 1) * 1_234_567L;
+        }
+        return new VoteSnapshot(1, VoteSnapshot.Status.OK, 42, ids, resets, NOW, VoteSnapshot.Freshness.FRESH);
+    }
+
+    public static HudOverlay overlay(ScheduledExecutorService executor, int styleIndex) throws IOException {
+        ConfigManager config = new ConfigManager(Files.createTempFile("excaliavotemod-bench", ".json"), executor, executor);
+        config.setStyleIndex(styleIndex);
+        return new HudOverlay(config, SiteRegistry.bundled(LoggerFactory.getLogger("excaliavotemod-bench")));
+    }
+
+    public static ScheduledExecutorService executor() {
+        return Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "excaliavotemod-bench-io");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static byte[] payload(int sites, boolean noise) {
+        StringBuilder json = new StringBuilder(64 + sites * 48);
+        json.append("{\"votes\":42,");
+        if (noise)
+            json.append("\"user\":{\"name\":\"Steve\",\"history\":[1,2,3,4,5,6,7,8,9,10]},");
+        json.append("\"sites\":{");
+        for (int i = 0; i < sites; i++) {
+            if (i > 0)
+                json.append(',');
+            int id = i < SITE_IDS.length ? SITE_IDS[i] : 100 + i;
+            json.append('"').append(id).append("\":").append(NOW + i * 60_000L);
+        }
+        json.append("}}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
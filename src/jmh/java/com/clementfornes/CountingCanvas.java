@@ -0,0 +1,26 @@
+package com.clementfornes;
+
+import net.minecraft.text.Text;
+
+public class CountingCanvas implements HudCanvas {
+    public int calls;
+    public int checksum;
+
+    @Override
+    public void drawText(Text text, int x, int y, int color, boolean shadow) {
+        calls++;
+        checksum += x ^ y ^ color;
+    }
+
+    @Override
+    public void fill(int x1, int y1, int x2, int y2, int color) {
+        calls++;
+        checksum += x2 - x1 + color;
+    }
+
+    @Override
+    public void drawBorder(int x, int y, int width, int height, int color) {
+        calls++;
+        checksum += width ^ height ^ color;
+    }
+}
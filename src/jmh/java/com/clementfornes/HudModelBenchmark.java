@@ -0,0 +1,80 @@
+package com.clementfornes;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HudModelBenchmark {
+    private static final int TICK_WINDOW = 1200;
+
+    @Param({"0", "1", "2", "3", "4", "5"})
+    public int styleIndex;
+
+    @Param({"5", "50"})
+    public int sites;
+
+    private ScheduledExecutorService executor;
+    private HudOverlay overlay;
+    private VoteSnapshot snapshot;
+    private long now;
+    private int tick;
+    private final StringBuilder countdown = new StringBuilder(16);
+
+    @Setup
+    public void setup() throws IOException {
+        executor = BenchmarkFixtures.executor();
+        overlay = BenchmarkFixtures.overlay(executor, styleIndex);
+        snapshot = BenchmarkFixtures.snapshot(sites);
+        overlay.rebuildModel(BenchmarkFixtures.MEASURER, snapshot, BenchmarkFixtures.NOW);
+        now = BenchmarkFixtures.NOW;
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void buildLines(Blackhole bh) {
+        now = ticking();
+        overlay.buildLines(overlay.model, snapshot, now);
+        bh.consume(overlay.model.lines);
+    }
+
+    @Benchmark
+    public void rebuildModel(Blackhole bh) {
+        now = ticking();
+        overlay.rebuildModel(BenchmarkFixtures.MEASURER, snapshot, now);
+        bh.consume(overlay.model.panelWidth);
+    }
+
+    // Stays below the nearest fixture reset so every countdown keeps changing; an unbounded clock
+    // soon makes all sites available and the model builders only measure their unchanged fast path.
+    private long ticking() {
+        tick = (tick + 1) % TICK_WINDOW;
+        return BenchmarkFixtures.NOW + tick * 1000L;
+    }
+
+    @Benchmark
+    public void buildColors(Blackhole bh) {
+        now += 7;
+        overlay.buildColors(now);
+        bh.consume(overlay.model.colors);
+    }
+
+    @Benchmark
+    public StringBuilder formatCountdown() {
+        now += 1000;
+        countdown.setLength(0);
+        return CountdownFormatter.append(countdown, now % 7_200_000L);
+    }
+}
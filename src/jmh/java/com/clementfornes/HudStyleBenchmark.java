@@ -0,0 +1,45 @@
+package com.clementfornes;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HudStyleBenchmark {
+    @Param({"0", "1", "2", "3", "4", "5"})
+    public int styleIndex;
+
+    private ScheduledExecutorService executor;
+    private HudOverlay overlay;
+    private CountingCanvas canvas;
+    private long now;
+
+    @Setup
+    public void setup() throws IOException {
+        executor = BenchmarkFixtures.executor();
+        overlay = BenchmarkFixtures.overlay(executor, styleIndex);
+        overlay.rebuildModel(BenchmarkFixtures.MEASURER, BenchmarkFixtures.snapshot(5), BenchmarkFixtures.NOW);
+        canvas = new CountingCanvas();
+        now = BenchmarkFixtures.NOW;
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int steadyStateFrame() {
+        now += 7;
+        overlay.buildColors(now);
+        overlay.renderPanel(canvas, 6, 6);
+        return canvas.checksum;
+    }
+}
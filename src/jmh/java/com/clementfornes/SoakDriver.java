@@ -0,0 +1,105 @@
+package com.clementfornes;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+public class SoakDriver {
+    private static final Logger LOGGER = LoggerFactory.getLogger("excaliavotemod-soak");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parse(args);
+        long durationS = Long.parseLong(opts.getOrDefault("duration", "60"));
+        int fps = Integer.parseInt(opts.getOrDefault("fps", "60"));
+        int accounts = Integer.parseInt(opts.getOrDefault("accounts", "3"));
+        long refreshMs = Long.parseLong(opts.getOrDefault("refresh", "2000"));
+        long reportMs = Long.parseLong(opts.getOrDefault("report", "10000"));
+        int style = Integer.parseInt(opts.getOrDefault("style", "1"));
+        StubVoteServer.Options options = new StubVoteServer.Options(
+                Integer.parseInt(opts.getOrDefault("sites", "5")),
+                Long.parseLong(opts.getOrDefault("latency", "50")),
+                Double.parseDouble(opts.getOrDefault("errors", "0.05")),
+                Integer.parseInt(opts.getOrDefault("trickle", "0")),
+                Long.parseLong(opts.getOrDefault("trickleDelay", "20")),
+                Long.parseLong(opts.getOrDefault("resetWindow", "60000")),
+                opts.containsKey("payloads") ? Path.of(opts.get("payloads")) : null);
+
+        ExecutorService io = Executors.newVirtualThreadPerTaskExecutor();
+        ScheduledExecutorService timer = BenchmarkFixtures.executor();
+        try (StubVoteServer server = new StubVoteServer(options)) {
+            VoteEventBus events = new VoteEventBus(LOGGER);
+            VoteService service = new VoteService(server.endpoint(), LOGGER, io, null, events);
+            String[] users = new String[accounts];
+            for (int i = 0; i < accounts; i++)
+                users[i] = "soak" + i;
+            service.restore(users[0]);
+            service.track(List.of(users).subList(1, accounts));
+            timer.scheduleAtFixedRate(() -> service.fetchAll(service.trackedUsers()), 0, refreshMs,
+                    TimeUnit.MILLISECONDS);
+
+            HudOverlay overlay = BenchmarkFixtures.overlay(timer, style);
+            LatencyHistogram frameNanos = new LatencyHistogram();
+            LatencyHistogram frameAlloc = new LatencyHistogram();
+            long frameInterval = 1_000_000_000L / fps;
+            long start = System.nanoTime();
+            long end = start + TimeUnit.SECONDS.toNanos(durationS);
+            long nextFrame = start;
+            long nextReport = System.currentTimeMillis() + reportMs;
+            LOGGER.info("[ExcaliaVoteMod] Soak run against {} for {} s at {} fps, {} account(s), {}",
+                    server.endpoint(), durationS, fps, accounts, options);
+            while (System.nanoTime() < end) {
+                long now = System.currentTimeMillis();
+                long frameStart = System.nanoTime();
+                long allocStart = ModMetrics.allocatedBytes();
+                VoteSnapshot snapshot = service.snapshot();
+                if (overlay.model.isStale(snapshot, now))
+                    overlay.rebuildModel(BenchmarkFixtures.MEASURER, snapshot, now);
+                overlay.buildColors(now);
+                frameNanos.record(System.nanoTime() - frameStart);
+                if (allocStart >= 0)
+                    frameAlloc.record(ModMetrics.allocatedBytes() - allocStart);
+                if (now >= nextReport) {
+                    report(server, frameNanos, frameAlloc);
+                    nextReport = now + reportMs;
+                }
+                nextFrame += frameInterval;
+                long sleep = nextFrame - System.nanoTime();
+                if (sleep > 0)
+                    LockSupport.parkNanos(sleep);
+            }
+            report(server, frameNanos, frameAlloc);
+        } finally {
+            timer.shutdownNow();
+            io.shutdownNow();
+        }
+    }
+
+    private static void report(StubVoteServer server, LatencyHistogram frameNanos, LatencyHistogram frameAlloc) {
+        LOGGER.info("[ExcaliaVoteMod] requests {} (503: {}, 304: {}), fetch ok {} failed {}, fetch p50 {} ms p99 {} ms",
+                server.requests(), server.errors(), server.notModified(),
+                ModMetrics.FETCH_OK.sum(), ModMetrics.FETCH_FAILED.sum(),
+                ModMetrics.FETCH_NANOS.percentile(50) / 1_000_000, ModMetrics.FETCH_NANOS.percentile(99) / 1_000_000);
+        LOGGER.info("[ExcaliaVoteMod] frames {}, frame p50 {} µs p99 {} µs, alloc/frame p50 {} B p99 {} B max {} B",
+                frameNanos.count(), frameNanos.percentile(50) / 1000, frameNanos.percentile(99) / 1000,
+                frameAlloc.percentile(50), frameAlloc.percentile(99), frameAlloc.max());
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0)
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            opts.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return opts;
+    }
+}
@@ -0,0 +1,129 @@
+package com.clementfornes;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+public class StubVoteServer implements AutoCloseable {
+    public record Options(int sites, long latencyMs, double errorRate, int trickleBytes,
+                          long trickleDelayMs, long resetWindowMs, Path payloadDir) {
+    }
+
+    private static final String PREFIX = "/vote/user/";
+
+    private final Options options;
+    private final HttpServer server;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+
+    public StubVoteServer(Options options) throws IOException {
+        this.options = options;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext(PREFIX, this::handle);
+        server.start();
+    }
+
+    public String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + PREFIX;
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    public long notModified() {
+        return notModified.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        try (exchange) {
+            String name = exchange.getRequestURI().getPath().substring(PREFIX.length());
+            sleep(options.latencyMs());
+            if (ThreadLocalRandom.current().nextDouble() < options.errorRate()) {
+                errors.increment();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            byte[] body = body(name);
+            String etag = "\"" + Integer.toHexString(Arrays.hashCode(body)) + "\"";
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.increment();
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.sendResponseHeaders(200, body.length);
+            OutputStream out = exchange.getResponseBody();
+            if (options.trickleBytes() <= 0) {
+                out.write(body);
+                return;
+            }
+            for (int offset = 0; offset < body.length; offset += options.trickleBytes()) {
+                out.write(body, offset, Math.min(options.trickleBytes(), body.length - offset));
+                out.flush();
+                sleep(options.trickleDelayMs());
+            }
+        }
+    }
+
+    private byte[] body(String name) throws IOException {
+        if (options.payloadDir() != null) {
+            Path recorded = options.payloadDir().resolve(name + ".json");
+            if (Files.isRegularFile(recorded))
+                return Files.readAllBytes(recorded);
+        }
+        return generate(name);
+    }
+
+    private byte[] generate(String name) {
+        long now = System.currentTimeMillis();
+        long window = Math.max(1, options.resetWindowMs());
+        long bucket = now / window * window;
+        int seed = name.hashCode();
+        StringBuilder json = new StringBuilder(32 + options.sites() * 32);
+        json.append("{\"votes\":").append(Math.floorMod(seed, 200)).append(",\"sites\":{");
+        for (int i = 0; i < options.sites(); i++) {
+            if (i > 0)
+                json.append(',');
+            int id = i < BenchmarkFixtures.SITE_IDS.length ? BenchmarkFixtures.SITE_IDS[i] : 100 + i;
+            long offset = Math.floorMod((long) seed * 31 + i * 7_919L, window * 2) - window / 2;
+            json.append('"').append(id).append("\":").append(bucket + offset);
+        }
+        json.append("}}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0)
+            return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.clementfornes;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoteDecoderBenchmark {
+    @Param({"realistic", "oversized"})
+    public String payload;
+
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        body = payload.equals("realistic")
+                ? BenchmarkFixtures.payload(5, false)
+                : BenchmarkFixtures.payload(5_000, true);
+    }
+
+    @Benchmark
+    public VoteDecoder.Payload decode() throws VoteParseException {
+        return VoteDecoder.decode(body);
+    }
+}